@@ -41,22 +41,29 @@ import io.github.narikiro.api.registry.CommandRegistry;
 import io.github.narikiro.api.registry.ConfigRegistry;
 import io.github.narikiro.api.text.HelpPaginationHandler;
 import io.github.narikiro.core.command.CommandHandlerImpl;
+import io.github.narikiro.core.command.CommandStats;
 import io.github.narikiro.core.command.annotation.CommandAnnotationHelperImpl;
 import io.github.narikiro.core.config.ConfigHandlerImpl;
 import io.github.narikiro.core.config.annotation.ConfigAnnotationHelperImpl;
+import io.github.narikiro.core.data.DataStoreImpl;
 import io.github.narikiro.core.event.XtraCoreCommandHandlerInitializedEventImpl;
 import io.github.narikiro.core.event.XtraCoreConfigHandlerInitializedEventImpl;
 import io.github.narikiro.core.event.XtraCoreInitializedEventImpl;
 import io.github.narikiro.core.event.XtraCoreListenerHandlerInitializedEventImpl;
 import io.github.narikiro.core.event.XtraCorePluginInitializedEventImpl;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.ConfigChecker;
+import io.github.narikiro.core.listener.AsyncListenerExecutor;
 import io.github.narikiro.core.listener.ListenerHandlerImpl;
+import io.github.narikiro.core.listener.ListenerTimings;
+import io.github.narikiro.core.logger.ErrorAggregator;
 import io.github.narikiro.core.logger.LoggerHandlerImpl;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import io.github.narikiro.core.plugin.XtraCorePluginHandlerImpl;
 import io.github.narikiro.core.registry.CommandRegistryImpl;
 import io.github.narikiro.core.registry.ConfigRegistryImpl;
 import io.github.narikiro.core.text.HelpPaginationHandlerImpl;
+import io.github.narikiro.core.text.PagedOutput;
 import io.github.narikiro.core.util.PluginInfo;
 import io.github.narikiro.core.util.ReflectionScanner;
 import org.slf4j.Logger;
@@ -74,6 +81,11 @@ public class CoreImpl implements ICore {
     private CommandRegistryImpl commandRegistry = new CommandRegistryImpl();
     private ConfigRegistryImpl configRegistry = new ConfigRegistryImpl();
     private LoggerHandlerImpl loggerHandler = new LoggerHandlerImpl();
+    private ErrorAggregator errorAggregator = new ErrorAggregator();
+    private ListenerTimings listenerTimings = new ListenerTimings();
+    private AsyncListenerExecutor asyncListenerExecutor = new AsyncListenerExecutor();
+    private PagedOutput pagedOutput = new PagedOutput();
+    private CommandStats commandStats = new CommandStats();
 
     public CoreImpl(XtraCore core) {
         // Initialize XtraCore stuff
@@ -89,6 +101,10 @@ public class CoreImpl implements ICore {
         ConfigHandler configHandler = ConfigHandlerImpl.create(containerImpl);
         containerImpl.setConfigHandler(configHandler);
         Sponge.getEventManager().post(new XtraCoreConfigHandlerInitializedEventImpl(containerImpl, configHandler));
+        // Read XtraCore's own settings before anything depending on them is
+        // initialized.
+        ConfigChecker.coreConfig();
+        this.loggerHandler.applyGlobalSettings();
 
         CommandHandler commandHandler = CommandHandlerImpl.create(containerImpl);
         containerImpl.setCommandHandler(commandHandler);
@@ -167,6 +183,15 @@ public class CoreImpl implements ICore {
         return container.get().getListenerHandler();
     }
 
+    public Optional<DataStoreImpl> getDataStore(Class<?> clazz) {
+        checkNotNull(clazz, "Plugin class cannot be null!");
+        Optional<XtraCorePluginContainer> container = this.pluginHandler.getContainer(clazz);
+        if (!container.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(((XtraCorePluginContainerImpl) container.get()).getDataStore());
+    }
+
     @Override
     public HelpPaginationHandler.Builder createHelpPaginationBuilder(Class<?> clazz) {
         checkNotNull(clazz, "Plugin class cannot be null!");
@@ -214,6 +239,26 @@ public class CoreImpl implements ICore {
         return this.loggerHandler;
     }
 
+    public ErrorAggregator getErrorAggregator() {
+        return this.errorAggregator;
+    }
+
+    public ListenerTimings getListenerTimings() {
+        return this.listenerTimings;
+    }
+
+    public CommandStats getCommandStats() {
+        return this.commandStats;
+    }
+
+    public PagedOutput getPagedOutput() {
+        return this.pagedOutput;
+    }
+
+    public AsyncListenerExecutor getAsyncListenerExecutor() {
+        return this.asyncListenerExecutor;
+    }
+
     @Override
     public String getVersion() {
         return PluginInfo.VERSION;
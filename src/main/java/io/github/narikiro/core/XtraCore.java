@@ -31,12 +31,16 @@ import io.github.narikiro.api.command.base.CommandBaseLite;
 import io.github.narikiro.api.config.Config;
 import io.github.narikiro.api.config.annotation.DoNotReload;
 import io.github.narikiro.api.config.base.ConfigBase;
+import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.api.text.HelpPaginationHandler.ChildBehavior;
 import io.github.narikiro.core.command.base.CommandBaseImpl;
 import io.github.narikiro.core.command.base.CommandBaseLiteImpl;
 import io.github.narikiro.core.config.base.ConfigBaseImpl;
 import io.github.narikiro.core.internal.Internals;
 import io.github.narikiro.core.internal.config.ConfigChecker;
+import io.github.narikiro.core.listener.ListenerHandlerImpl;
+import io.github.narikiro.core.logger.LoggerHandlerImpl;
+import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import io.github.narikiro.core.util.PluginInfo;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.spongepowered.api.event.Listener;
@@ -44,11 +48,14 @@ import org.spongepowered.api.event.Order;
 import org.spongepowered.api.event.game.GameReloadEvent;
 import org.spongepowered.api.event.game.state.GameInitializationEvent;
 import org.spongepowered.api.event.game.state.GamePreInitializationEvent;
+import org.spongepowered.api.event.game.state.GameStoppingServerEvent;
 import org.spongepowered.api.plugin.Plugin;
 
 @Plugin(name = PluginInfo.NAME, id = PluginInfo.ID, version = PluginInfo.VERSION, authors = PluginInfo.AUTHORS, description = PluginInfo.VERSION, url = PluginInfo.WEBSITE)
 public class XtraCore {
 
+    private ConfigBaseImpl configBase = new ConfigBaseImpl();
+
     // Provide initial services to Core.
     @Listener(order = Order.FIRST)
     public void onPreInit(GamePreInitializationEvent event) {
@@ -63,6 +70,11 @@ public class XtraCore {
     // For automatic configuration reloading.
     @Listener
     public void onReload(GameReloadEvent event) {
+        ConfigChecker.coreConfig();
+        ((LoggerHandlerImpl) CoreImpl.instance.getLoggerHandler()).applyLevels();
+        for (XtraCorePluginContainer container : CoreImpl.instance.getPluginHandler().getContainers()) {
+            container.getListenerHandler().ifPresent(handler -> ((ListenerHandlerImpl) handler).applyDisabled());
+        }
         ConfigChecker.commandConfig();
         for (Config config : CoreImpl.instance.getConfigRegistry().getAllConfigs()) {
             // If there is no DoNotReload annotation, then reload.
@@ -72,11 +84,22 @@ public class XtraCore {
         }
     }
 
+    // Make sure that all asynchronous listeners, data store and config writes
+    // are done before shutting down.
+    @Listener
+    public void onStopping(GameStoppingServerEvent event) {
+        CoreImpl.instance.getAsyncListenerExecutor().shutdown();
+        for (XtraCorePluginContainer container : CoreImpl.instance.getPluginHandler().getContainers()) {
+            ((XtraCorePluginContainerImpl) container).closeDataStore();
+        }
+        this.configBase.shutdown();
+    }
+
     private void provideImplementations() {
         try {
             FieldUtils.writeStaticField(CommandBase.class, "BASE", new CommandBaseImpl(), true);
             FieldUtils.writeStaticField(CommandBaseLite.class, "BASE", new CommandBaseLiteImpl(), true);
-            FieldUtils.writeStaticField(ConfigBase.class, "BASE", new ConfigBaseImpl(), true);
+            FieldUtils.writeStaticField(ConfigBase.class, "BASE", this.configBase, true);
             FieldUtils.writeStaticField(Core.class, "CORE", new CoreImpl(this), true);
         } catch (Exception e) {
             Internals.globalLogger.error("An error has occurred while attempting to set the static API fields!", e);
@@ -0,0 +1,182 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+import org.spongepowered.api.command.CommandCallable;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandPermissionException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import io.github.narikiro.api.command.Command;
+import io.github.narikiro.core.util.store.CommandStore;
+
+/**
+ * Routes the arguments of a root command to its child commands itself, instead
+ * of going through the nested children of Sponge's command specs. Each node
+ * has its own command spec without children, and a map of its children by
+ * their lower case aliases, so finding the executed command only takes one
+ * lookup per level.
+ */
+public class CommandDispatcher implements CommandCallable {
+
+    private Node root;
+
+    private CommandDispatcher(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a dispatcher for the specified root command.
+     *
+     * @param command The root command
+     * @param graph The graph containing the command and its children
+     * @param stores The command stores of the commands, whose specs have no
+     *        children
+     * @return The dispatcher
+     */
+    public static CommandDispatcher create(Command command, CommandGraph graph, Map<Command, CommandStore> stores) {
+        return new CommandDispatcher(createNode(command, graph, stores));
+    }
+
+    private static Node createNode(Command command, CommandGraph graph, Map<Command, CommandStore> stores) {
+        Node node = new Node(stores.get(command).commandSpec());
+        for (Command child : graph.getChildren(command)) {
+            Node childNode = createNode(child, graph, stores);
+            for (String alias : stores.get(child).aliases()) {
+                node.children.put(alias.toLowerCase(Locale.ROOT), childNode);
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public CommandResult process(CommandSource source, String arguments) throws CommandException {
+        Node node = this.root;
+        int start = skipWhitespace(arguments, 0);
+        while (true) {
+            if (!node.spec.testPermission(source)) {
+                throw new CommandPermissionException();
+            }
+            int end = findWhitespace(arguments, start);
+            Node child = node.children.get(arguments.substring(start, end).toLowerCase(Locale.ROOT));
+            if (child == null) {
+                // Only the arguments of this command are left
+                return node.spec.process(source, arguments.substring(start));
+            }
+            node = child;
+            start = skipWhitespace(arguments, end);
+        }
+    }
+
+    @Override
+    public List<String> getSuggestions(CommandSource source, String arguments, @Nullable Location<World> targetPosition) throws CommandException {
+        Node node = this.root;
+        int start = skipWhitespace(arguments, 0);
+        while (node.spec.testPermission(source)) {
+            int end = findWhitespace(arguments, start);
+            String remaining = arguments.substring(start);
+            if (end == arguments.length()) {
+                // Still typing the first argument, which may be a child
+                List<String> suggestions = new ArrayList<>();
+                String prefix = remaining.toLowerCase(Locale.ROOT);
+                for (Map.Entry<String, Node> child : node.children.entrySet()) {
+                    if (child.getKey().startsWith(prefix) && child.getValue().spec.testPermission(source)) {
+                        suggestions.add(child.getKey());
+                    }
+                }
+                suggestions.addAll(node.spec.getSuggestions(source, remaining, targetPosition));
+                return suggestions;
+            }
+            Node child = node.children.get(arguments.substring(start, end).toLowerCase(Locale.ROOT));
+            if (child == null) {
+                return node.spec.getSuggestions(source, remaining, targetPosition);
+            }
+            node = child;
+            start = skipWhitespace(arguments, end);
+        }
+        return Collections.emptyList();
+    }
+
+    // Arguments may be separated by more than one space, like Sponge allows
+    private static int skipWhitespace(String arguments, int index) {
+        while (index < arguments.length() && Character.isWhitespace(arguments.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int findWhitespace(String arguments, int index) {
+        while (index < arguments.length() && !Character.isWhitespace(arguments.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    @Override
+    public boolean testPermission(CommandSource source) {
+        return this.root.spec.testPermission(source);
+    }
+
+    @Override
+    public Optional<Text> getShortDescription(CommandSource source) {
+        return this.root.spec.getShortDescription(source);
+    }
+
+    @Override
+    public Optional<Text> getHelp(CommandSource source) {
+        return this.root.spec.getHelp(source);
+    }
+
+    @Override
+    public Text getUsage(CommandSource source) {
+        return this.root.spec.getUsage(source);
+    }
+
+    private static class Node {
+
+        private CommandSpec spec;
+        private Map<String, Node> children = new HashMap<>();
+
+        private Node(CommandSpec spec) {
+            this.spec = spec;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.command;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import io.github.narikiro.api.command.Command;
+import io.github.narikiro.api.command.annotation.RegisterCommand;
+import io.github.narikiro.api.util.command.EmptyCommand;
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
+
+/**
+ * The parent and child relations of a set of commands, resolved from their
+ * {@link RegisterCommand#childOf()} annotations, so that they can be looked
+ * up without going through all commands.
+ *
+ * <p>New commands are added with {@link #add(Collection)}. Only the new
+ * commands, and the commands that were waiting for one of them as their
+ * parent, are resolved. Commands whose parent is not known yet are kept as
+ * roots until their parent is added. The graph may be read from any thread
+ * while commands are added.</p>
+ */
+public final class CommandGraph {
+
+    // Both the graph of a plugin and the global graph find a cycle, but it
+    // is only logged once
+    private static final Set<Class<?>> REPORTED_CYCLES = ConcurrentHashMap.newKeySet();
+
+    private final Map<Class<?>, Command> commands = new ConcurrentHashMap<>();
+    // The commands in the order they were added
+    private final Queue<Command> order = new ConcurrentLinkedQueue<>();
+    // The first command added of each super class and interface, for
+    // commands naming a super class of their parent
+    private final Map<Class<?>, Command> supertypes = new ConcurrentHashMap<>();
+    private final Map<Command, Command> parents = new ConcurrentHashMap<>();
+    private final Map<Command, Set<Command>> children = new ConcurrentHashMap<>();
+    private final Map<Command, Integer> depths = new ConcurrentHashMap<>();
+    private final Map<Command, Command> roots = new ConcurrentHashMap<>();
+    // The commands turned into roots because they close a childOf cycle
+    private final Set<Command> cycleRoots = ConcurrentHashMap.newKeySet();
+    // The commands whose parent has not been added yet, by the class they
+    // name as their parent. Only used while adding.
+    private final Map<Class<?>, List<Command>> waiting = new HashMap<>();
+    private volatile int version;
+
+    private CommandGraph() {
+    }
+
+    public static CommandGraph create() {
+        return new CommandGraph();
+    }
+
+    public static CommandGraph of(Collection<? extends Command> commands) {
+        CommandGraph graph = create();
+        graph.add(commands);
+        return graph;
+    }
+
+    /**
+     * Adds the specified commands to the graph. Commands of the graph waiting
+     * for their parent are linked to it if it is one of the new commands.
+     * Commands of a class that is already part of the graph are ignored.
+     *
+     * @param added The commands to add
+     */
+    public synchronized void add(Collection<? extends Command> added) {
+        checkNotNull(added, "Commands cannot be null!");
+        List<Command> newCommands = new ArrayList<>(added.size());
+        for (Command command : added) {
+            if (this.commands.putIfAbsent(command.getClass(), command) != null) {
+                continue;
+            }
+            this.order.add(command);
+            for (Class<?> supertype : getSupertypes(command.getClass())) {
+                this.supertypes.putIfAbsent(supertype, command);
+            }
+            newCommands.add(command);
+        }
+
+        // The new commands and the commands waiting for one of them are the
+        // only ones whose parent may change
+        Set<Command> linked = new LinkedHashSet<>();
+        for (Command command : newCommands) {
+            this.link(command.getClass(), linked);
+            for (Class<?> supertype : getSupertypes(command.getClass())) {
+                this.link(supertype, linked);
+            }
+        }
+        Set<Command> dirty = new LinkedHashSet<>(newCommands);
+        dirty.addAll(linked);
+        for (Command command : dirty) {
+            Command parent = this.resolveParent(command);
+            if (parent != null) {
+                this.parents.put(command, parent);
+            }
+            this.depths.remove(command);
+            this.roots.remove(command);
+        }
+
+        for (Command command : dirty) {
+            this.walk(command, dirty, new HashSet<>());
+        }
+        for (Command command : linked) {
+            this.moveSubtree(command, dirty);
+        }
+        for (Command command : dirty) {
+            Command parent = this.parents.get(command);
+            if (parent != null) {
+                this.children.computeIfAbsent(parent, k -> new CopyOnWriteArraySet<>()).add(command);
+            }
+        }
+        this.version++;
+    }
+
+    private static List<Class<?>> getSupertypes(Class<?> clazz) {
+        List<Class<?>> supertypes = new ArrayList<>(ClassUtils.getAllSuperclasses(clazz));
+        supertypes.remove(Object.class);
+        supertypes.addAll(ClassUtils.getAllInterfaces(clazz));
+        return supertypes;
+    }
+
+    private void link(Class<?> parentClass, Set<Command> linked) {
+        List<Command> waitingChildren = this.waiting.remove(parentClass);
+        if (waitingChildren != null) {
+            linked.addAll(waitingChildren);
+        }
+    }
+
+    private Command resolveParent(Command command) {
+        RegisterCommand annotation = command.getClass().getAnnotation(RegisterCommand.class);
+        if (annotation == null || annotation.childOf().equals(EmptyCommand.class)) {
+            return null;
+        }
+        Command parent = this.commands.get(annotation.childOf());
+        if (parent == null) {
+            // The parent may be a super class of the registered command
+            parent = this.supertypes.get(annotation.childOf());
+        }
+        if (parent == null) {
+            this.waiting.computeIfAbsent(annotation.childOf(), k -> new ArrayList<>()).add(command);
+        }
+        return parent;
+    }
+
+    private void walk(Command command, Set<Command> dirty, Set<Command> visiting) {
+        if (this.depths.containsKey(command)) {
+            return;
+        }
+        Command parent = this.parents.get(command);
+        if (parent == null) {
+            this.depths.put(command, 0);
+            this.roots.put(command, command);
+            return;
+        }
+        if (!visiting.add(command)) {
+            if (REPORTED_CYCLES.add(command.getClass())) {
+                Internals.globalLogger.error("The command '{}' is its own parent through its childOf chain! Registering it as a root command.",
+                        getPrimaryAlias(command));
+            }
+            this.cycleRoots.add(command);
+            this.parents.remove(command);
+            this.depths.put(command, 0);
+            this.roots.put(command, command);
+            return;
+        }
+        // A parent that was already part of the graph keeps its place below
+        // its root. If that root has just been linked to a parent, the place
+        // of the root has to be known first.
+        Command parentRoot = dirty.contains(parent) ? null : this.roots.get(parent);
+        boolean moving = parentRoot != null && dirty.contains(parentRoot);
+        this.walk(moving ? parentRoot : parent, dirty, visiting);
+        if (!this.parents.containsKey(command)) {
+            // Turned into a root because it closes a cycle
+            return;
+        }
+        if (moving) {
+            this.depths.put(command, this.depths.get(parent) + this.depths.get(parentRoot) + 1);
+            this.roots.put(command, this.roots.get(parentRoot));
+        } else {
+            this.depths.put(command, this.depths.get(parent) + 1);
+            this.roots.put(command, this.roots.get(parent));
+        }
+    }
+
+    // The commands below a command which has just been linked to its parent
+    // were below it as a root, and move along with it
+    private void moveSubtree(Command top, Set<Command> dirty) {
+        int offset = this.depths.get(top);
+        Command root = this.roots.get(top);
+        if (root == top) {
+            return;
+        }
+        Deque<Command> stack = new ArrayDeque<>(this.getChildren(top));
+        while (!stack.isEmpty()) {
+            Command command = stack.pop();
+            if (dirty.contains(command)) {
+                continue;
+            }
+            this.depths.put(command, this.depths.get(command) + offset);
+            this.roots.put(command, root);
+            stack.addAll(this.getChildren(command));
+        }
+    }
+
+    /**
+     * Gets the command of the specified class.
+     *
+     * @param clazz The class of the command
+     * @return The command, if it is part of the graph
+     */
+    public Optional<Command> getCommand(Class<? extends Command> clazz) {
+        checkNotNull(clazz, "Command class cannot be null!");
+        return Optional.ofNullable(this.commands.get(clazz));
+    }
+
+    public Optional<Command> getParent(Command command) {
+        checkNotNull(command, "Command cannot be null!");
+        return Optional.ofNullable(this.parents.get(command));
+    }
+
+    public Set<Command> getChildren(Command command) {
+        checkNotNull(command, "Command cannot be null!");
+        Set<Command> children = this.children.get(command);
+        return children != null ? Collections.unmodifiableSet(children) : Collections.emptySet();
+    }
+
+    /**
+     * Gets whether the specified command names a parent, but is a root
+     * command because its childOf chain leads back to itself.
+     *
+     * @param command The command
+     * @return Whether the command closes a cycle
+     */
+    public boolean isCycleRoot(Command command) {
+        checkNotNull(command, "Command cannot be null!");
+        return this.cycleRoots.contains(command);
+    }
+
+    /**
+     * Gets how many parents the specified command has, or -1 if it is not
+     * part of the graph.
+     *
+     * @param command The command
+     * @return The depth of the command
+     */
+    public int getDepth(Command command) {
+        checkNotNull(command, "Command cannot be null!");
+        return this.depths.getOrDefault(command, -1);
+    }
+
+    /**
+     * Gets the command at the top of the parent chain of the specified
+     * command, which is the command itself if it has no parent.
+     *
+     * @param command The command
+     * @return The root command, if the command is part of the graph
+     */
+    public Optional<Command> getRoot(Command command) {
+        checkNotNull(command, "Command cannot be null!");
+        return Optional.ofNullable(this.roots.get(command));
+    }
+
+    /**
+     * Gets the primary alias of the root command of the specified command,
+     * which is the alias registered to Sponge.
+     *
+     * @param command The command
+     * @return The root alias, if the command is part of the graph
+     */
+    public Optional<String> getRootAlias(Command command) {
+        return this.getRoot(command).map(CommandGraph::getPrimaryAlias);
+    }
+
+    /**
+     * Gets all commands ordered so that every command comes after all of its
+     * children, which is the order in which nested command specs can be
+     * built.
+     *
+     * @return The commands, children first
+     */
+    public List<Command> getPostOrder() {
+        List<Command> order = new ArrayList<>(this.commands.size());
+        Deque<Command> stack = new ArrayDeque<>();
+        Set<Command> expanded = new HashSet<>();
+        for (Command command : this.order) {
+            if (this.parents.containsKey(command)) {
+                continue;
+            }
+            stack.push(command);
+            while (!stack.isEmpty()) {
+                Command top = stack.peek();
+                if (expanded.add(top)) {
+                    for (Command child : this.getChildren(top)) {
+                        stack.push(child);
+                    }
+                } else {
+                    order.add(stack.pop());
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Gets the primary aliases of the specified command and its parents,
+     * separated by spaces, which is how the command is typed.
+     *
+     * @param command The command
+     * @return The path of the command
+     */
+    public String getPath(Command command) {
+        checkNotNull(command, "Command cannot be null!");
+        StringBuilder path = new StringBuilder(getPrimaryAlias(command));
+        for (Command parent = this.parents.get(command); parent != null; parent = this.parents.get(parent)) {
+            path.insert(0, ' ').insert(0, getPrimaryAlias(parent));
+        }
+        return path.toString();
+    }
+
+    // From the command store once the command is registered, so that the
+    // aliases are not created again
+    private static String getPrimaryAlias(Command command) {
+        return ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getPrimaryAlias(command);
+    }
+
+    /**
+     * Gets the commands of the graph, in the order they were added.
+     *
+     * @return The commands
+     */
+    public Collection<Command> getCommands() {
+        return Collections.unmodifiableCollection(this.order);
+    }
+
+    public int size() {
+        return this.commands.size();
+    }
+
+    /**
+     * Gets a number which changes whenever commands are added, for caches of
+     * things derived from the graph.
+     *
+     * @return The version of the graph
+     */
+    public int getVersion() {
+        return this.version;
+    }
+}
@@ -27,9 +27,14 @@ package io.github.narikiro.core.command;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.spec.CommandSpec;
 import org.spongepowered.api.text.Text;
@@ -45,8 +50,11 @@ import io.github.narikiro.core.command.runnable.CommandRunnableHandlerImpl;
 import io.github.narikiro.core.command.state.CommandStateHandlerImpl;
 import io.github.narikiro.core.internal.Internals;
 import io.github.narikiro.core.internal.config.ConfigChecker;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.logger.Subsystem;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import io.github.narikiro.core.registry.CommandRegistryImpl;
+import io.github.narikiro.core.text.HelpPaginationHandlerImpl;
 import io.github.narikiro.core.util.CommandGetter;
 import io.github.narikiro.core.util.CommandHelper;
 import io.github.narikiro.core.util.store.CommandStore;
@@ -60,8 +68,12 @@ public class CommandHandlerImpl implements CommandHandler {
     private XtraCorePluginContainerImpl container;
     private Set<Command> commands;
     private CommandHelper helper;
+    private Logger logger;
     private CommandRunnableHandler runnableHandler;
     private CommandStateHandler stateHandler;
+    // The stores of the commands, whose specs have no children, if XtraCore
+    // routes to the child commands
+    @Nullable private Map<Command, CommandStore> dispatcherStores;
 
     private CommandHandlerImpl() {
     }
@@ -76,28 +88,36 @@ public class CommandHandlerImpl implements CommandHandler {
         Internals.globalLogger.info("Initializing command handler for " + entry.getPluginContainer().getName());
 
         this.commands = this.container.scanner.getCommands();
+        // Parents and children are resolved once, and looked up from the
+        // graph from now on
+        this.container.commandGraph = CommandGraph.of(this.commands);
         this.container.setCommandHandler(this);
 
         ConfigChecker.commandConfig();
 
         this.helper = new CommandHelper(this.container);
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Initializing the command handler!");
-        this.container.getLogger().info("Initializing the command specs for the commands...");
+        this.logger = Subsystem.COMMAND.getLogger(this.container);
+        this.logger.info(Internals.LOG_HEADER);
+        this.logger.info("Initializing the command handler!");
+        this.logger.info("Initializing the command specs for the commands...");
 
         for (Command command : this.commands) {
             this.initializeCommandSpec(command);
         }
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Adding any necessary child commands to the command specs!");
-        this.addChildCommands();
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Building and registering the commands!");
+        this.logger.info(Internals.LOG_HEADER);
+        this.logger.info("Building the command specs, child commands first!");
+        this.buildCommandSpecs();
+        this.logger.info(Internals.LOG_HEADER);
+        this.logger.info("Registering the commands!");
+        CommandRegistryImpl commandImpl = (CommandRegistryImpl) CoreImpl.instance.getCommandRegistry();
         for (CommandStore command : this.container.commandStores) {
-            this.buildAndRegisterCommand(command.commandSpecBuilder(), command.command());
-            CommandRegistryImpl commandImpl = (CommandRegistryImpl) CoreImpl.instance.getCommandRegistry();
-            commandImpl.add(command.command(), this.container);
+            this.registerCommand(command);
+            commandImpl.add(command, this.container);
         }
+        commandImpl.addToGraph(this.commands);
+        // The help list may have been created before the commands were
+        this.container.getHelpPaginationHandler().ifPresent(
+                handler -> ((HelpPaginationHandlerImpl) handler).addCommands(this.container.commandStores));
 
         this.runnableHandler = CommandRunnableHandlerImpl.create(entry);
         this.stateHandler = CommandStateHandlerImpl.create(entry);
@@ -107,58 +127,78 @@ public class CommandHandlerImpl implements CommandHandler {
     private void initializeCommandSpec(Command command) {
         // Create the initial CommandSpec builder
         CommandSpec.Builder specBuilder = CommandSpec.builder().executor(command);
+        Command parentCommand = this.helper.getParentCommand(command);
+        CommandStore store = new CommandStore(command, specBuilder, parentCommand);
 
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Initializing the command spec for the command '" + command.aliases()[0] + "'.");
+        this.logger.debug(Internals.LOG_HEADER);
+        this.logger.debug("Initializing the command spec for the command '{}'.", store.primaryAlias());
 
         // In case null, do not use
-        if (command.permission() != null) {
-            specBuilder.permission(command.permission());
-            this.container.getLogger().info("Command permission: '" + command.permission() + "'");
+        if (store.permission() != null) {
+            specBuilder.permission(store.permission());
+            this.logger.debug("Command permission: '{}'", store.permission());
         }
         if (command.description() != null) {
             specBuilder.description(Text.of(command.description()));
-            this.container.getLogger().info("Command description: '" + command.description() + "'");
+            this.logger.debug("Command description: '{}'", command.description());
         }
         if (command.args() != null) {
             if (command.args().length != 0) {
                 specBuilder.arguments(command.args());
-                this.container.getLogger().info("Command has " + command.args().length + " argument(s).");
+                this.logger.debug("Command has {} argument(s).", command.args().length);
             }
         }
 
-        Command parentCommand = this.helper.getParentCommand(command);
         if (parentCommand != null) {
-            this.container.getLogger().info("Adding the command and its parent command to the command stores.");
-            this.container.commandStores.add(new CommandStore(command, specBuilder, parentCommand));
+            this.logger.debug("Adding the command and its parent command to the command stores.");
         } else {
-            this.container.getLogger().info("Parent command not found. Presuming command does not have one.");
-            this.container.commandStores.add(new CommandStore(command, specBuilder, null));
+            this.logger.debug("Parent command not found. Presuming command does not have one.");
         }
+        this.container.commandStores.add(store);
     }
 
-    private void addChildCommands() {
-        // Go through the commands to find any child commands
+    private void buildCommandSpecs() {
+        Map<Command, CommandStore> stores = new HashMap<>();
         for (CommandStore commandStore : this.container.commandStores) {
-            if (commandStore.childOf() != null) {
-                if (!(commandStore.childOf() instanceof EmptyCommand)) {
-                    // Iterate through to find the parent
-                    for (CommandStore commandStore2 : this.container.commandStores) {
-                        if (commandStore2.command().equals(commandStore.childOf())) {
-                            this.container.getLogger().info("Adding '" + commandStore.command().aliases()[0] + "' as a child command of '"
-                                    + commandStore2.command().aliases()[0] + "'");
-                            commandStore2.commandSpecBuilder().child(commandStore.commandSpecBuilder().build(), commandStore.command().aliases());
-                        }
-                    }
-                }
+            stores.put(commandStore.command(), commandStore);
+        }
+        if (CoreSettings.commandsNativeDispatcher) {
+            // The dispatcher routes to the children, so the specs only need
+            // their own arguments
+            for (CommandStore commandStore : this.container.commandStores) {
+                commandStore.setCommandSpec(commandStore.commandSpecBuilder().build());
             }
+            this.dispatcherStores = stores;
+            return;
+        }
+        // Children come before their parents, so every spec is built exactly
+        // once and already contains all of its children, however deep the
+        // tree is
+        for (Command command : this.container.commandGraph.getPostOrder()) {
+            CommandStore commandStore = stores.get(command);
+            for (Command child : this.container.commandGraph.getChildren(command)) {
+                CommandStore childStore = stores.get(child);
+                this.logger.debug("Adding '{}' as a child command of '{}'", childStore.primaryAlias(), commandStore.primaryAlias());
+                commandStore.commandSpecBuilder().child(childStore.commandSpec(), childStore.aliases());
+            }
+            commandStore.setCommandSpec(commandStore.commandSpecBuilder().build());
         }
     }
 
-    private void buildAndRegisterCommand(CommandSpec.Builder commandSpec, Command command) {
-        if (command.getClass().getAnnotation(RegisterCommand.class).childOf().equals(EmptyCommand.class)) {
-            this.container.getLogger().info("Building and registering the command: '" + command.aliases()[0] + "'");
-            Sponge.getCommandManager().register(this.container.getPlugin(), commandSpec.build(), command.aliases());
+    private void registerCommand(CommandStore commandStore) {
+        Command command = commandStore.command();
+        // Commands closing a childOf cycle have been turned into root commands
+        if (command.getClass().getAnnotation(RegisterCommand.class).childOf().equals(EmptyCommand.class)
+                || this.container.commandGraph.isCycleRoot(command)) {
+            this.logger.info("Registering the command: '{}'", commandStore.primaryAlias());
+            if (this.dispatcherStores != null) {
+                Sponge.getCommandManager().register(this.container.getPlugin(),
+                        CommandDispatcher.create(command, this.container.commandGraph, this.dispatcherStores), commandStore.aliases());
+            } else {
+                Sponge.getCommandManager().register(this.container.getPlugin(), commandStore.commandSpec(), commandStore.aliases());
+            }
+        } else if (commandStore.childOf() == null) {
+            this.logger.warn("Could not find the parent command of '{}' in this plugin! It will not be registered.", commandStore.primaryAlias());
         }
     }
 
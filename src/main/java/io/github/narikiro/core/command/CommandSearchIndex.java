@@ -0,0 +1,155 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.command;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import io.github.narikiro.api.command.Command;
+
+/**
+ * An inverted index from the words of the aliases, descriptions and usages of
+ * commands to the commands containing them. Commands are added once they are
+ * registered, and searching only looks at the commands containing the words
+ * of the query.
+ */
+public class CommandSearchIndex {
+
+    // How much a word counts, depending on where it was found
+    private static final int ALIAS_WEIGHT = 4;
+    private static final int USAGE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Sorted, so that the last word of a query can also match as a prefix
+    private NavigableMap<String, Map<Command, Integer>> index = new TreeMap<>();
+    // Breaks ties between results without creating the aliases again
+    private Map<Command, String> primaryAliases = new HashMap<>();
+
+    public synchronized void addAll(Collection<? extends Command> commands) {
+        checkNotNull(commands, "Commands cannot be null!");
+        for (Command command : commands) {
+            String[] aliases = command.aliases();
+            this.primaryAliases.put(command, aliases[0]);
+            for (String alias : aliases) {
+                this.addWords(command, alias, ALIAS_WEIGHT);
+            }
+            if (command.usage() != null) {
+                this.addWords(command, command.usage(), USAGE_WEIGHT);
+            }
+            if (command.description() != null) {
+                this.addWords(command, command.description(), DESCRIPTION_WEIGHT);
+            }
+        }
+    }
+
+    private void addWords(Command command, String text, int weight) {
+        for (String word : split(text)) {
+            this.index.computeIfAbsent(word, k -> new HashMap<>()).merge(command, weight, Math::max);
+        }
+    }
+
+    /**
+     * Searches the commands matching all words of the specified query. The
+     * last word also matches words starting with it, which count for half.
+     * Commands whose aliases match rank before commands whose descriptions
+     * match.
+     *
+     * @param query The query
+     * @param limit The maximum amount of results
+     * @return The matching commands, best match first
+     */
+    public synchronized List<Command> search(String query, int limit) {
+        checkNotNull(query, "Query cannot be null!");
+        List<String> words = split(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Command, Integer> scores = null;
+        for (int i = 0; i < words.size(); i++) {
+            Map<Command, Integer> wordScores = this.score(words.get(i), i == words.size() - 1);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                // Every word has to match
+                Map<Command, Integer> combined = new HashMap<>();
+                for (Map.Entry<Command, Integer> entry : scores.entrySet()) {
+                    Integer score = wordScores.get(entry.getKey());
+                    if (score != null) {
+                        combined.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        List<Map.Entry<Command, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int result = Integer.compare(b.getValue(), a.getValue());
+            return result != 0 ? result : this.primaryAliases.get(a.getKey()).compareTo(this.primaryAliases.get(b.getKey()));
+        });
+        List<Command> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            results.add(ranked.get(i).getKey());
+        }
+        return results;
+    }
+
+    private Map<Command, Integer> score(String word, boolean prefix) {
+        Map<Command, Integer> scores = new HashMap<>();
+        Map<Command, Integer> exact = this.index.get(word);
+        if (exact != null) {
+            scores.putAll(exact);
+        }
+        if (prefix) {
+            for (Map.Entry<String, Map<Command, Integer>> entry : this.index.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+                for (Map.Entry<Command, Integer> match : entry.getValue().entrySet()) {
+                    scores.merge(match.getKey(), Math.max(1, match.getValue() / 2), Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
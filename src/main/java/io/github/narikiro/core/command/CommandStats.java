@@ -0,0 +1,49 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.command;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.narikiro.api.command.Command;
+import io.github.narikiro.core.util.stats.LatencyHistogram;
+
+/**
+ * Records how often and for how long each command is executed.
+ */
+public class CommandStats {
+
+    private Map<Class<?>, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(Class<?> clazz, long nanos) {
+        this.histograms.computeIfAbsent(clazz, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public Optional<LatencyHistogram> getHistogram(Class<? extends Command> clazz) {
+        return Optional.ofNullable(this.histograms.get(clazz));
+    }
+}
@@ -34,6 +34,8 @@ import io.github.narikiro.api.command.annotation.CommandAnnotationHelper;
 import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.util.command.EmptyCommand;
 import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.command.CommandGraph;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
 
 /**
  * A helper class that gets information from any command annotations.
@@ -79,9 +81,15 @@ public class CommandAnnotationHelperImpl implements CommandAnnotationHelper {
             return Optional.empty();
         }
 
+        CommandGraph graph = ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getGraph();
+        Optional<Command> command = graph.getCommand(clazz);
+        if (command.isPresent()) {
+            return graph.getParent(command.get());
+        }
+        // Not registered (yet), so look the parent up by its class
         Optional<Class<? extends Command>> parentClass = getParent(clazz);
         if (parentClass.isPresent()) {
-            return CoreImpl.instance.getCommandRegistry().getCommand(parentClass.get());
+            return graph.getCommand(parentClass.get());
         }
         return Optional.empty();
     }
@@ -25,6 +25,7 @@
 
 package io.github.narikiro.core.command.base;
 
+import io.github.narikiro.api.command.Command;
 import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.command.annotation.RunAt;
 import io.github.narikiro.api.command.base.CommandBase;
@@ -34,9 +35,13 @@ import io.github.narikiro.api.command.runnable.CommandRunnableResult;
 import io.github.narikiro.api.command.state.CommandState;
 import io.github.narikiro.api.util.command.CommandBaseExecutor;
 import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.logger.JsonLineLayout;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
 import io.github.narikiro.core.util.map.MapSorter;
 import io.github.narikiro.core.util.store.CommandStore;
+import org.slf4j.MDC;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.tileentity.CommandBlock;
 import org.spongepowered.api.command.CommandException;
@@ -58,8 +63,10 @@ import org.spongepowered.api.text.format.TextColors;
 import java.lang.annotation.Annotation;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class CommandBaseImpl implements CommandBaseExecutor {
 
@@ -151,6 +158,8 @@ public class CommandBaseImpl implements CommandBaseExecutor {
 
             Sponge.getScheduler().createTaskBuilder().execute(
                     task -> {
+                        long start = System.nanoTime();
+                        boolean json = putContext(commandBase);
                         try {
                             commandBase.executeCommand(source, args);
                             postTask.submit(this.container.getPlugin());
@@ -158,14 +167,21 @@ public class CommandBaseImpl implements CommandBaseExecutor {
                             source.sendMessage(e.getText());
                         } catch (Exception e2) {
                             source.sendMessage(Text.of(TextColors.RED, "An error has occurred while attempting to execute this command!"));
-                            this.container.getLogger()
-                                    .error("An exception has occurred while attempting to execute the command " + this.base.aliases()[0] + "!", e2);
+                            putDuration(json, start);
+                            CoreImpl.instance.getErrorAggregator().report(this.container.getLogger(), commandBase.getClass().getName(),
+                                    () -> "An exception has occurred while attempting to execute the command " + getPrimaryAlias(commandBase)
+                                            + "!", e2);
+                        } finally {
+                            removeContext(json);
+                            CoreImpl.instance.getCommandStats().record(commandBase.getClass(), System.nanoTime() - start);
                         }
                     }).async().submit(this.container.getPlugin());
 
             return CommandResult.success();
         }
 
+        long start = System.nanoTime();
+        boolean json = putContext(commandBase);
         try {
             CommandResult result = commandBase.executeCommand(source, args);
             // Execute any runnables set for 'POST'. Note that the result is
@@ -176,12 +192,50 @@ public class CommandBaseImpl implements CommandBaseExecutor {
             source.sendMessage(e.getText());
         } catch (Exception e2) {
             source.sendMessage(Text.of(TextColors.RED, "An error has occurred while attempting to execute this command."));
-            this.container.getLogger().error("An exception has occurred while attempting to execute the command " + this.base.aliases()[0] + "!", e2);
+            putDuration(json, start);
+            CoreImpl.instance.getErrorAggregator().report(this.container.getLogger(), commandBase.getClass().getName(),
+                    () -> "An exception has occurred while attempting to execute the command " + getPrimaryAlias(commandBase) + "!", e2);
+        } finally {
+            removeContext(json);
+            CoreImpl.instance.getCommandStats().record(commandBase.getClass(), System.nanoTime() - start);
         }
         // If errored
         return CommandResult.empty();
     }
 
+    /**
+     * Puts the command into the logging context if logging to JSON, as only
+     * the JSON layout reads it.
+     *
+     * @param command The executed command
+     * @return Whether the context has to be removed again
+     */
+    static boolean putContext(Command command) {
+        if (!CoreSettings.loggingJson) {
+            return false;
+        }
+        MDC.put(JsonLineLayout.COMMAND, getPrimaryAlias(command));
+        return true;
+    }
+
+    static String getPrimaryAlias(Command command) {
+        return ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getPrimaryAlias(command);
+    }
+
+    // For the error logged when the command fails
+    static void putDuration(boolean json, long start) {
+        if (json) {
+            MDC.put(JsonLineLayout.DURATION, String.valueOf(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+        }
+    }
+
+    static void removeContext(boolean json) {
+        if (json) {
+            MDC.remove(JsonLineLayout.COMMAND);
+            MDC.remove(JsonLineLayout.DURATION);
+        }
+    }
+
     private Optional<Text> checkCommandSource(Class<?> type, CommandSource source) {
         // If it's CommandSource, don't bother with the checks below.
         if (type.equals(CommandSource.class)) {
@@ -217,7 +271,10 @@ public class CommandBaseImpl implements CommandBaseExecutor {
             // Check if the runnable's phase is equal to the current phase
             if (runnableEntry.getValue().phase().equals(phase)) {
                 // Run the runnable
-                CommandRunnableResult result = runnableEntry.getKey().run(source, args);
+                CommandRunnableResult result;
+                try (MDC.MDCCloseable context = MDC.putCloseable(JsonLineLayout.PHASE, phase.name().toLowerCase(Locale.ROOT))) {
+                    result = runnableEntry.getKey().run(source, args);
+                }
                 // If there is a result, return it so that we may stop the
                 // command
                 if (result.getResult() != null) {
@@ -231,13 +288,9 @@ public class CommandBaseImpl implements CommandBaseExecutor {
     }
 
     private boolean checkCommandState() {
-        for (CommandStore store : this.container.commandStores) {
-            if (store.command().getClass().equals(this.base.getClass())) {
-                return store.state().equals(CommandState.ENABLED);
-            }
-        }
+        Optional<CommandStore> store = ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getStore(this.base.getClass());
         // Should never really happen, but if it does, then allow the command to
         // process anyway
-        return true;
+        return !store.isPresent() || store.get().state().equals(CommandState.ENABLED);
     }
 }
@@ -51,25 +51,39 @@ public class CommandBaseLiteImpl implements CommandBaseLiteExecutor {
         if (base.getClass().getAnnotation(RegisterCommand.class).async()) {
             Sponge.getScheduler().createTaskBuilder().execute(
                     task -> {
+                        long start = System.nanoTime();
+                        boolean json = CommandBaseImpl.putContext(base);
                         try {
                             base.executeCommand(source, args);
                         } catch (CommandException e) {
                             source.sendMessage(e.getText());
                         } catch (Exception e2) {
                             source.sendMessage(Text.of(TextColors.RED, "An error has occurred while attempting to execute this command."));
-                            container.getLogger()
-                                    .error("An exception has occurred while attempting to execute the command " + base.aliases()[0] + "!", e2);
+                            CommandBaseImpl.putDuration(json, start);
+                            CoreImpl.instance.getErrorAggregator().report(container.getLogger(), base.getClass().getName(),
+                                    () -> "An exception has occurred while attempting to execute the command "
+                                            + CommandBaseImpl.getPrimaryAlias(base) + "!", e2);
+                        } finally {
+                            CommandBaseImpl.removeContext(json);
+                            CoreImpl.instance.getCommandStats().record(base.getClass(), System.nanoTime() - start);
                         }
                     }).async().submit(container.getPlugin());
             return CommandResult.success();
         } else {
+            long start = System.nanoTime();
+            boolean json = CommandBaseImpl.putContext(base);
             try {
                 return base.executeCommand(source, args);
             } catch (CommandException e) {
                 source.sendMessage(e.getText());
             } catch (Exception e2) {
                 source.sendMessage(Text.of(TextColors.RED, "An error has occurred while attempting to execute this command."));
-                container.getLogger().error("An exception has occurred while attempting to execute the command " + base.aliases()[0] + "!", e2);
+                CommandBaseImpl.putDuration(json, start);
+                CoreImpl.instance.getErrorAggregator().report(container.getLogger(), base.getClass().getName(),
+                        () -> "An exception has occurred while attempting to execute the command " + CommandBaseImpl.getPrimaryAlias(base) + "!", e2);
+            } finally {
+                CommandBaseImpl.removeContext(json);
+                CoreImpl.instance.getCommandStats().record(base.getClass(), System.nanoTime() - start);
             }
         }
         return CommandResult.empty();
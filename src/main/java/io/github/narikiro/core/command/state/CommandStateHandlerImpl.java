@@ -34,6 +34,7 @@ import io.github.narikiro.api.command.state.CommandState;
 import io.github.narikiro.api.command.state.CommandStateHandler;
 import io.github.narikiro.core.internal.Internals;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
+import io.github.narikiro.core.text.HelpPaginationHandlerImpl;
 import io.github.narikiro.core.util.store.CommandStore;
 
 public class CommandStateHandlerImpl implements CommandStateHandler {
@@ -55,6 +56,8 @@ public class CommandStateHandlerImpl implements CommandStateHandler {
         for (CommandStore store : this.container.commandStores) {
             if (store.command().getClass().equals(clazz)) {
                 store.setState(state);
+                // Disabled commands are left out of the help lists
+                this.container.getHelpPaginationHandler().ifPresent(handler -> ((HelpPaginationHandlerImpl) handler).updateState(store));
             }
         }
     }
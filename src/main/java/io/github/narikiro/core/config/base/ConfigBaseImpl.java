@@ -29,15 +29,26 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
 import io.github.narikiro.api.config.annotation.RegisterConfig;
 import io.github.narikiro.api.config.base.ConfigBase;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.api.util.config.ConfigExecutor;
 import io.github.narikiro.api.util.config.ConfigStore;
 import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.config.io.ConfigIOCoordinator;
+import io.github.narikiro.core.config.snapshot.ConfigSnapshot;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.logger.JsonLineLayout;
+import io.github.narikiro.core.logger.Subsystem;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import ninja.leaping.configurate.loader.ConfigurationLoader;
@@ -47,47 +58,46 @@ import ninja.leaping.configurate.loader.ConfigurationLoader;
  */
 public class ConfigBaseImpl implements ConfigExecutor {
 
+    private Map<ConfigStore, Path> configPaths = new HashMap<>();
+    private ConfigIOCoordinator coordinator = new ConfigIOCoordinator();
+
     @Override
     public void init(ConfigBase base) {
         try {
             XtraCorePluginContainer container = CoreImpl.instance.getConfigRegistry().getEntry(base.getClass()).get().getValue();
             RegisterConfig rc = base.getClass().getAnnotation(RegisterConfig.class);
 
-            container.getLogger().info("Initializing configuration for '" + rc.configName() + ".conf'.");
+            Logger logger = Subsystem.CONFIG.getLogger(container);
+            logger.info("Initializing configuration for '{}.conf'.", rc.configName());
 
             HoconConfigurationLoader.Builder loaderBuilder = HoconConfigurationLoader.builder();
             loaderBuilder.setDefaultOptions(base.setOptions());
-            Path dir;
             // The file is created automatically, however we need to know if we
             // need to populate it or not
             boolean exists;
-            if (rc.sharedRoot()) {
-                dir = Paths.get(System.getProperty("user.dir"), "/config/");
-                this.checkExists(dir);
-            } else {
-                dir = Paths.get(System.getProperty("user.dir"), "/config/" + container.getPluginContainer().getId());
-                this.checkExists(dir);
-            }
-            Path configPath = dir.resolve(rc.configName() + ".conf");
+            Path configPath = this.getConfigPath(container, rc);
+            this.checkExists(configPath.getParent());
             exists = Files.exists(configPath);
             loaderBuilder.setPath(configPath);
             ConfigurationLoader<CommentedConfigurationNode> loader = loaderBuilder.build();
             CommentedConfigurationNode rootNode;
             if (!exists) {
-                container.getLogger().info("Configuration file '" + rc.configName() + "' currently does not exist. Creating...");
+                logger.info("Configuration file '{}' currently does not exist. Creating...", rc.configName());
                 Files.createFile(configPath);
                 rootNode = loader.createEmptyNode();
                 // Here we add the new, empty node and store it
                 ConfigStore store = new ConfigStore(container, loader, rootNode, base);
                 FieldUtils.writeField(base, "store", store, true);
+                this.configPaths.put(store, configPath);
 
                 base.populate();
                 this.save(store);
             } else {
-                rootNode = loader.load();
+                rootNode = this.coordinator.read(configPath, () -> this.loadRootNode(container, loader, configPath));
                 // Here we load the root node and store it
                 ConfigStore store = new ConfigStore(container, loader, rootNode, base);
                 FieldUtils.writeField(base, "store", store, true);
+                this.configPaths.put(store, configPath);
             }
         } catch (Exception e) {
             Internals.globalLogger.error("An exception has occurred while attempting to initialize a configuration base!", e);
@@ -100,10 +110,75 @@ public class ConfigBaseImpl implements ConfigExecutor {
         }
     }
 
+    private Path getConfigPath(XtraCorePluginContainer container, RegisterConfig rc) {
+        Path dir;
+        if (rc.sharedRoot()) {
+            dir = Paths.get(System.getProperty("user.dir"), "/config/");
+        } else {
+            dir = Paths.get(System.getProperty("user.dir"), "/config/" + container.getPluginContainer().getId());
+        }
+        return dir.resolve(rc.configName() + ".conf");
+    }
+
+    private CommentedConfigurationNode loadRootNode(XtraCorePluginContainer container, ConfigurationLoader<CommentedConfigurationNode> loader,
+            Path configPath) throws IOException {
+        if (!CoreSettings.configSnapshots || configPath == null) {
+            return loader.load();
+        }
+        // If the config has not changed since the snapshot was written, we
+        // can skip parsing it entirely.
+        Logger logger = Subsystem.CONFIG.getLogger(container);
+        Path snapshotPath = ConfigSnapshot.getSnapshotPath(configPath);
+        byte[] hash = ConfigSnapshot.hash(configPath);
+        long start = System.nanoTime();
+        try {
+            Optional<ConfigSnapshot.SnapshotResult> snapshot = ConfigSnapshot.read(snapshotPath, hash, loader);
+            if (snapshot.isPresent()) {
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                try (MDC.MDCCloseable context = MDC.putCloseable(JsonLineLayout.DURATION, String.valueOf(micros))) {
+                    if (snapshot.get().getParseTime() != 0) {
+                        logger.info("Loaded '{}' from its snapshot in {}us (full parse took {}us).", configPath.getFileName(), micros,
+                                TimeUnit.NANOSECONDS.toMicros(snapshot.get().getParseTime()));
+                    } else {
+                        logger.info("Loaded '{}' from its snapshot in {}us.", configPath.getFileName(), micros);
+                    }
+                }
+                return snapshot.get().getRootNode();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read the snapshot of '{}', parsing the config instead.", configPath.getFileName(), e);
+        }
+
+        start = System.nanoTime();
+        CommentedConfigurationNode rootNode = loader.load();
+        long parseTime = System.nanoTime() - start;
+        long micros = TimeUnit.NANOSECONDS.toMicros(parseTime);
+        try (MDC.MDCCloseable context = MDC.putCloseable(JsonLineLayout.DURATION, String.valueOf(micros))) {
+            logger.info("Parsed '{}' in {}us.", configPath.getFileName(), micros);
+        }
+        this.writeSnapshot(container, configPath, hash, parseTime, rootNode);
+        return rootNode;
+    }
+
+    private void writeSnapshot(XtraCorePluginContainer container, Path configPath, byte[] hash, long parseTime,
+            CommentedConfigurationNode rootNode) {
+        try {
+            ConfigSnapshot.write(ConfigSnapshot.getSnapshotPath(configPath), hash, parseTime, rootNode);
+        } catch (IOException e) {
+            container.getLogger().warn("Could not write the snapshot of '" + configPath.getFileName() + "'.", e);
+        }
+    }
+
     @Override
     public void load(ConfigStore store) {
         try {
-            store.rootNode = store.loader.load();
+            Path configPath = this.configPaths.get(store);
+            if (configPath == null) {
+                store.rootNode = store.loader.load();
+            } else {
+                // Waits for any pending writes of the file first
+                store.rootNode = this.coordinator.read(configPath, () -> this.loadRootNode(store.entry, store.loader, configPath));
+            }
         } catch (IOException e) {
             store.entry.getLogger().error("An exception has occurred while attempting to load a configuration file!", e);
         }
@@ -111,11 +186,52 @@ public class ConfigBaseImpl implements ConfigExecutor {
 
     @Override
     public void save(ConfigStore store) {
+        Path configPath = this.configPaths.get(store);
+        if (configPath == null) {
+            try {
+                store.loader.save(store.rootNode);
+            } catch (IOException e) {
+                store.entry.getLogger().error("An exception has occurred while attempting to save a configuration file!", e);
+            }
+            return;
+        }
+
+        ConfigurationLoader<CommentedConfigurationNode> loader = store.loader;
+        XtraCorePluginContainer container = store.entry;
         try {
-            store.loader.save(store.rootNode);
+            if (this.coordinator.tryWriteNow(configPath, () -> this.saveNode(container, configPath, loader, store.rootNode))) {
+                return;
+            }
         } catch (IOException e) {
-            store.entry.getLogger().error("An exception has occurred while attempting to save a configuration file!", e);
+            container.getLogger().error("An exception has occurred while attempting to save a configuration file!", e);
+            return;
         }
+        // Another operation on the file is still pending, so the write is
+        // queued with a copy, as the node may be changed again meanwhile
+        CommentedConfigurationNode rootNode = store.rootNode.copy();
+        this.coordinator.write(configPath, () -> this.saveNode(container, configPath, loader, rootNode)).exceptionally(t -> {
+            container.getLogger().error("An exception has occurred while attempting to save a configuration file!", t);
+            return null;
+        });
+    }
+
+    private Void saveNode(XtraCorePluginContainer container, Path configPath, ConfigurationLoader<CommentedConfigurationNode> loader,
+            CommentedConfigurationNode rootNode) throws IOException {
+        loader.save(rootNode);
+        if (CoreSettings.configSnapshots) {
+            // The config file now matches the node in memory, so refresh the
+            // snapshot as well. The parse time is not known here, so it is
+            // left out.
+            this.writeSnapshot(container, configPath, ConfigSnapshot.hash(configPath), 0, rootNode);
+        }
+        return null;
+    }
+
+    /**
+     * Waits for all pending config writes to finish.
+     */
+    public void shutdown() {
+        this.coordinator.shutdown();
     }
 
     @Override
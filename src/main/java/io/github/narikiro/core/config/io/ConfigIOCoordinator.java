@@ -0,0 +1,264 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.config.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.narikiro.core.internal.Internals;
+
+/**
+ * Coordinates the reading and writing of config files. Operations on the same
+ * file are run one after another on a small, bounded I/O executor, and each
+ * operation holds an advisory lock on a lock file in the XtraCore config
+ * directory, so that other servers sharing the directory do not write at the
+ * same time.
+ *
+ * <p>The last modification time and size of each file are remembered after
+ * every read and write. If the file has been changed by something else before
+ * it is written, the other version is kept as a backup instead of being
+ * silently overwritten.</p>
+ */
+public class ConfigIOCoordinator {
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_SIZE = 256;
+
+    private ThreadPoolExecutor executor;
+    // The last operation of each file, new operations are chained onto it
+    private Map<Path, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+    private Map<Path, FileStamp> stamps = new ConcurrentHashMap<>();
+    private Map<Path, Path> lockPaths = new ConcurrentHashMap<>();
+
+    public ConfigIOCoordinator() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "XtraCore-ConfigIO-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, executor) -> {
+            // Rather write on the calling thread than lose a write, also once
+            // the executor has been shut down
+            runnable.run();
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Reads the specified file once all earlier operations on it are done,
+     * and waits for the result.
+     *
+     * @param path The path of the file
+     * @param reader The action reading the file
+     * @return The result of the reader
+     * @throws IOException If the reader fails
+     */
+    public <T> T read(Path path, IOAction<T> reader) throws IOException {
+        try {
+            return this.submit(path, () -> {
+                T result = this.locked(path, reader);
+                this.stamps.put(path, FileStamp.of(path));
+                return result;
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the specified file once all earlier operations on it are done.
+     * This does not wait for the write to finish.
+     *
+     * @param path The path of the file
+     * @param writer The action writing the file
+     * @return A future completing once the file has been written
+     */
+    public CompletableFuture<Void> write(Path path, IOAction<?> writer) {
+        return this.submit(path, () -> {
+            this.checkExternalModification(path);
+            this.locked(path, writer);
+            this.stamps.put(path, FileStamp.of(path));
+            return null;
+        });
+    }
+
+    /**
+     * Writes the specified file on the calling thread if no other operation on
+     * it is pending. Otherwise nothing is written, so that the caller can
+     * queue the write with {@link #write(Path, IOAction)} instead.
+     *
+     * @param path The path of the file
+     * @param writer The action writing the file
+     * @return Whether the file has been written
+     * @throws IOException If the writer fails
+     */
+    public boolean tryWriteNow(Path path, IOAction<?> writer) throws IOException {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (this.tails.putIfAbsent(path, future) != null) {
+            return false;
+        }
+        try {
+            this.checkExternalModification(path);
+            this.locked(path, writer);
+            this.stamps.put(path, FileStamp.of(path));
+            future.complete(null);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Operations submitted meanwhile are chained onto the future
+            this.tails.remove(path, future);
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Path path, IOAction<T> action) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable runnable = () -> {
+            try {
+                future.complete(action.run());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+        CompletableFuture<?> tail = this.tails.put(path, future);
+        if (tail == null) {
+            this.executor.execute(runnable);
+        } else {
+            // Failures of earlier operations are reported to their own
+            // callers, so simply continue with this one
+            tail.whenComplete((result, t) -> this.executor.execute(runnable));
+        }
+        // Don't keep finished operations around
+        future.whenComplete((result, t) -> this.tails.remove(path, future));
+        return future;
+    }
+
+    private <T> T locked(Path path, IOAction<T> action) throws IOException {
+        Path lockPath = this.lockPaths.computeIfAbsent(path, ConfigIOCoordinator::getLockPath);
+        Files.createDirectories(lockPath.getParent());
+        try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            return action.run();
+        }
+    }
+
+    private static Path getLockPath(Path path) {
+        // Named after the path relative to the server directory, which is the
+        // same for every server sharing the config directory
+        String name;
+        try {
+            name = Paths.get("").toAbsolutePath().relativize(path.toAbsolutePath()).toString();
+        } catch (IllegalArgumentException e) {
+            name = path.toAbsolutePath().toString();
+        }
+        return Internals.LOCK_DIRECTORY.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(name.hashCode()) + ".lock");
+    }
+
+    private void checkExternalModification(Path path) throws IOException {
+        FileStamp known = this.stamps.get(path);
+        if (known == null || Files.notExists(path)) {
+            return;
+        }
+        FileStamp current = FileStamp.of(path);
+        if (!known.equals(current)) {
+            Path backup = path.resolveSibling(path.getFileName().toString() + "." + current.lastModified + ".external");
+            Files.copy(path, backup, StandardCopyOption.REPLACE_EXISTING);
+            Internals.globalLogger.warn("The config file '" + path + "' has been changed by something else since it was last read! "
+                    + "Its current contents have been backed up to '" + backup.getFileName() + "' before overwriting it.");
+        }
+    }
+
+    /**
+     * Waits for all pending writes to finish and stops the I/O threads.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                Internals.globalLogger.warn("Timed out while waiting for config files to be written!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An I/O action on a config file.
+     */
+    @FunctionalInterface
+    public interface IOAction<T> {
+
+        T run() throws IOException;
+    }
+
+    private static class FileStamp {
+
+        private long lastModified;
+        private long size;
+
+        private static FileStamp of(Path path) throws IOException {
+            FileStamp stamp = new FileStamp();
+            if (Files.exists(path)) {
+                stamp.lastModified = Files.getLastModifiedTime(path).toMillis();
+                stamp.size = Files.size(path);
+            }
+            return stamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp other = (FileStamp) o;
+            return this.lastModified == other.lastModified && this.size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.lastModified, this.size);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.config.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.loader.ConfigurationLoader;
+
+/**
+ * A compact binary copy of a parsed configuration node tree. A snapshot is
+ * stored next to its config file and is keyed by the SHA-1 hash of that file,
+ * so it is only ever used while the config file is unchanged.
+ */
+public class ConfigSnapshot {
+
+    private static final int MAGIC = 0x58435331;
+    private static final byte VERSION = 1;
+    private static final int HASH_LENGTH = 20;
+
+    private static final byte NULL = 0;
+    private static final byte MAP = 1;
+    private static final byte LIST = 2;
+    private static final byte STRING = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte TRUE = 8;
+    private static final byte FALSE = 9;
+    // Set on the type byte if a comment follows it
+    private static final byte COMMENTED = (byte) 0x80;
+
+    /**
+     * Gets the snapshot path for the specified config file.
+     *
+     * @param configPath The path of the config file
+     * @return The path of the snapshot
+     */
+    public static Path getSnapshotPath(Path configPath) {
+        return configPath.resolveSibling(configPath.getFileName().toString() + ".snapshot");
+    }
+
+    /**
+     * Calculates the hash of the specified config file, which is used to check
+     * whether a snapshot is still up to date.
+     *
+     * @param configPath The path of the config file
+     * @return The hash of the file
+     * @throws IOException
+     */
+    public static byte[] hash(Path configPath) throws IOException {
+        // Read into a heap buffer rather than mapping the file, as a mapped
+        // file cannot be replaced on Windows until the mapping is collected
+        try (InputStream in = Files.newInputStream(configPath)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-1
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads the snapshot at the specified path, if it exists and was written
+     * for a config file with the specified hash.
+     *
+     * @param snapshotPath The path of the snapshot
+     * @param hash The hash of the current config file
+     * @param loader The loader of the config, used for creating the nodes
+     * @return The snapshot, or {@link Optional#empty()} if the snapshot is
+     *         missing or out of date
+     * @throws IOException
+     */
+    public static Optional<SnapshotResult> read(Path snapshotPath, byte[] hash, ConfigurationLoader<CommentedConfigurationNode> loader)
+            throws IOException {
+        if (Files.notExists(snapshotPath)) {
+            return Optional.empty();
+        }
+        try {
+            // Not mapped, for the same reason as in hash(Path)
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+            if (buffer.remaining() < 4 + 1 + HASH_LENGTH + 8 || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                return Optional.empty();
+            }
+            byte[] snapshotHash = new byte[HASH_LENGTH];
+            buffer.get(snapshotHash);
+            if (!Arrays.equals(hash, snapshotHash)) {
+                return Optional.empty();
+            }
+            long parseTime = buffer.getLong();
+            CommentedConfigurationNode rootNode = loader.createEmptyNode();
+            readNode(buffer, rootNode);
+            return Optional.of(new SnapshotResult(rootNode, parseTime));
+        } catch (BufferUnderflowException | IllegalStateException | NegativeArraySizeException e) {
+            // A truncated or otherwise broken snapshot, simply parse the
+            // config instead
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the specified node. The snapshot is first written
+     * to a temporary file, which then replaces the old snapshot.
+     *
+     * @param snapshotPath The path of the snapshot
+     * @param hash The hash of the config file the node was loaded from
+     * @param parseTime How long parsing the config file took, in nanoseconds
+     * @param rootNode The root node
+     * @throws IOException
+     */
+    public static void write(Path snapshotPath, byte[] hash, long parseTime, CommentedConfigurationNode rootNode) throws IOException {
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName().toString() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.write(hash);
+            out.writeLong(parseTime);
+            writeNode(out, rootNode);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeNode(DataOutputStream out, CommentedConfigurationNode node) throws IOException {
+        Optional<String> comment = node.getComment();
+        byte commentFlag = comment.isPresent() ? COMMENTED : 0;
+        if (node.hasMapChildren()) {
+            Map<Object, ? extends CommentedConfigurationNode> children = node.getChildrenMap();
+            out.writeByte(MAP | commentFlag);
+            writeComment(out, comment);
+            out.writeInt(children.size());
+            for (Map.Entry<Object, ? extends CommentedConfigurationNode> entry : children.entrySet()) {
+                writeString(out, entry.getKey().toString());
+                writeNode(out, entry.getValue());
+            }
+            return;
+        }
+        if (node.hasListChildren()) {
+            List<? extends CommentedConfigurationNode> children = node.getChildrenList();
+            out.writeByte(LIST | commentFlag);
+            writeComment(out, comment);
+            out.writeInt(children.size());
+            for (CommentedConfigurationNode child : children) {
+                writeNode(out, child);
+            }
+            return;
+        }
+
+        Object value = node.getValue();
+        if (value == null) {
+            out.writeByte(NULL | commentFlag);
+            writeComment(out, comment);
+        } else if (value instanceof String) {
+            out.writeByte(STRING | commentFlag);
+            writeComment(out, comment);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT | commentFlag);
+            writeComment(out, comment);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG | commentFlag);
+            writeComment(out, comment);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE | commentFlag);
+            writeComment(out, comment);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT | commentFlag);
+            writeComment(out, comment);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(((Boolean) value ? TRUE : FALSE) | commentFlag);
+            writeComment(out, comment);
+        } else {
+            // Anything else cannot be restored exactly, so rather not write a
+            // snapshot at all
+            throw new IOException("Unsupported value type " + value.getClass().getName() + " at " + Arrays.toString(node.getPath()));
+        }
+    }
+
+    private static void writeComment(DataOutputStream out, Optional<String> comment) throws IOException {
+        if (comment.isPresent()) {
+            writeString(out, comment.get());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void readNode(ByteBuffer buffer, CommentedConfigurationNode node) {
+        byte type = buffer.get();
+        if ((type & COMMENTED) != 0) {
+            node.setComment(readString(buffer));
+        }
+        switch (type & ~COMMENTED) {
+            case NULL:
+                break;
+            case MAP:
+                int mapSize = buffer.getInt();
+                if (mapSize == 0) {
+                    node.setValue(Collections.emptyMap());
+                }
+                for (int i = 0; i < mapSize; i++) {
+                    readNode(buffer, node.getNode(readString(buffer)));
+                }
+                break;
+            case LIST:
+                int listSize = buffer.getInt();
+                if (listSize == 0) {
+                    node.setValue(Collections.emptyList());
+                }
+                for (int i = 0; i < listSize; i++) {
+                    readNode(buffer, node.getAppendedNode());
+                }
+                break;
+            case STRING:
+                node.setValue(readString(buffer));
+                break;
+            case INT:
+                node.setValue(buffer.getInt());
+                break;
+            case LONG:
+                node.setValue(buffer.getLong());
+                break;
+            case DOUBLE:
+                node.setValue(buffer.getDouble());
+                break;
+            case FLOAT:
+                node.setValue(buffer.getFloat());
+                break;
+            case TRUE:
+                node.setValue(true);
+                break;
+            case FALSE:
+                node.setValue(false);
+                break;
+            default:
+                throw new IllegalStateException("Unknown node type " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The root node read from a snapshot, along with how long the full parse
+     * of the config took when the snapshot was written.
+     */
+    public static class SnapshotResult {
+
+        private CommentedConfigurationNode rootNode;
+        private long parseTime;
+
+        private SnapshotResult(CommentedConfigurationNode rootNode, long parseTime) {
+            this.rootNode = rootNode;
+            this.parseTime = parseTime;
+        }
+
+        public CommentedConfigurationNode getRootNode() {
+            return this.rootNode;
+        }
+
+        public long getParseTime() {
+            return this.parseTime;
+        }
+    }
+}
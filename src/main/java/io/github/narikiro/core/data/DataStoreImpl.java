@@ -0,0 +1,553 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.scheduler.Task;
+
+import io.github.narikiro.api.plugin.XtraCorePluginContainer;
+import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.logger.Subsystem;
+
+/**
+ * A keyed data store for a plugin, meant for data that does not belong in a
+ * config, such as player data.
+ *
+ * <p>Records are appended to a log file, which is compacted once enough of it
+ * consists of overwritten or removed records. Writes are kept in memory and
+ * written to the log in batches by an asynchronous task, while recently used
+ * records are kept in a cache.</p>
+ */
+public class DataStoreImpl {
+
+    // Key length and value length
+    private static final int HEADER_LENGTH = 8;
+    // Value length of a removed record
+    private static final int TOMBSTONE = -1;
+
+    private XtraCorePluginContainer container;
+    private Logger logger;
+    private Path logPath;
+    private FileChannel channel;
+    // Only ever changed by the flushing thread
+    private long writePosition;
+    private long deadBytes;
+    // The position of the latest record of each key in the log
+    private Map<String, Long> index = new HashMap<>();
+    private Map<String, byte[]> cache;
+    // Writes that are not in the log yet, a null value is a removal
+    private Map<String, byte[]> pending = new LinkedHashMap<>();
+    // Writes that are currently being written to the log
+    private Map<String, byte[]> flushing = new LinkedHashMap<>();
+    private boolean flushQueued;
+    private Task flushTask;
+    private final Object flushLock = new Object();
+
+    private DataStoreImpl() {
+    }
+
+    public static DataStoreImpl create(XtraCorePluginContainer container) {
+        return new DataStoreImpl().init(container);
+    }
+
+    private DataStoreImpl init(XtraCorePluginContainer container) {
+        Internals.globalLogger.info(Internals.LOG_HEADER);
+        Internals.globalLogger.info("Initializing data store for {}", container.getPluginContainer().getName());
+        this.container = container;
+        this.logger = Subsystem.DATA.getLogger(container);
+        this.cache = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return this.size() > CoreSettings.dataStoreCacheSize;
+            }
+        };
+        try {
+            if (Files.notExists(Internals.DATA_DIRECTORY)) {
+                Files.createDirectories(Internals.DATA_DIRECTORY);
+            }
+            this.logPath = Internals.DATA_DIRECTORY.resolve(container.getPluginContainer().getId() + ".log");
+            this.channel = FileChannel.open(this.logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.readIndex();
+        } catch (IOException e) {
+            this.logger.error("An exception has occurred while attempting to open the data store! Writes will not be saved.", e);
+            // Writing to a log whose index could not be read would overwrite
+            // its records
+            this.index.clear();
+            if (this.channel != null) {
+                try {
+                    this.channel.close();
+                } catch (IOException e2) {
+                    this.logger.error("An exception has occurred while attempting to close the data store!", e2);
+                }
+                this.channel = null;
+            }
+        }
+        this.logger.info("Data store opened with {} record(s).", this.index.size());
+
+        this.flushTask = Sponge.getScheduler().createTaskBuilder().execute(task -> this.flush())
+                .interval(CoreSettings.dataStoreFlushInterval, TimeUnit.MILLISECONDS).async().submit(container.getPlugin());
+        return this;
+    }
+
+    private void readIndex() throws IOException {
+        long size = this.channel.size();
+        // The lengths of the latest records of each key, for counting the
+        // bytes of the records they replace
+        Map<String, Integer> lengths = new HashMap<>();
+        long position = 0;
+        while (position < size) {
+            // A buffer can only hold up to 2 GB, so larger logs are mapped a
+            // part at a time. A record is never larger than a part, so every
+            // part holds at least one complete record.
+            MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Integer.MAX_VALUE));
+            int read;
+            try {
+                read = this.readRecords(buffer, position, lengths);
+            } finally {
+                // The file cannot be truncated on Windows while it is still
+                // mapped
+                this.unmap(buffer);
+            }
+            if (read == 0) {
+                break;
+            }
+            position += read;
+        }
+        this.writePosition = position;
+        if (this.writePosition < size) {
+            this.logger.warn("Discarding {} byte(s) of incomplete records in the data store log.", size - this.writePosition);
+            this.channel.truncate(this.writePosition);
+        }
+    }
+
+    // Reads the complete records in the buffer, which starts at the specified
+    // position of the log, and returns their length
+    private int readRecords(MappedByteBuffer buffer, long start, Map<String, Integer> lengths) {
+        while (buffer.remaining() >= HEADER_LENGTH) {
+            int position = buffer.position();
+            int keyLength = buffer.getInt();
+            int valueLength = buffer.getInt();
+            int dataLength = keyLength + Math.max(valueLength, 0);
+            if (keyLength < 0 || dataLength < 0 || buffer.remaining() < dataLength) {
+                // Either the record goes on in the next part, or it is an
+                // incomplete record at the end, most likely from a crash while
+                // writing. Everything after the latter is dropped.
+                buffer.position(position);
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(keyBytes);
+            buffer.position(buffer.position() + Math.max(valueLength, 0));
+
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            Integer previous;
+            if (valueLength == TOMBSTONE) {
+                this.index.remove(key);
+                previous = lengths.remove(key);
+                this.deadBytes += HEADER_LENGTH + keyLength;
+            } else {
+                this.index.put(key, start + position);
+                previous = lengths.put(key, HEADER_LENGTH + dataLength);
+            }
+            if (previous != null) {
+                this.deadBytes += previous;
+            }
+        }
+        return buffer.position();
+    }
+
+    // There is no public API for unmapping a buffer, so the cleaner is invoked
+    // directly. If that is not possible, it is left to the garbage collector.
+    private void unmap(MappedByteBuffer buffer) {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafe = unsafeClass.getDeclaredField("theUnsafe");
+            unsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available, try the Java 8 way below
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            this.logger.debug("Could not unmap the data store log", e);
+        }
+    }
+
+    /**
+     * Gets the value stored for the specified key. The returned array must not
+     * be modified.
+     *
+     * @param key The key
+     * @return The value, or {@link Optional#empty()} if there is none
+     */
+    public Optional<byte[]> get(String key) {
+        checkNotNull(key, "Key cannot be null!");
+        while (true) {
+            FileChannel channel;
+            Long position;
+            synchronized (this) {
+                if (this.pending.containsKey(key)) {
+                    return Optional.ofNullable(this.pending.get(key));
+                }
+                if (this.flushing.containsKey(key)) {
+                    return Optional.ofNullable(this.flushing.get(key));
+                }
+                byte[] value = this.cache.get(key);
+                if (value != null) {
+                    return Optional.of(value);
+                }
+                position = this.index.get(key);
+                if (position == null || this.channel == null) {
+                    return Optional.empty();
+                }
+                channel = this.channel;
+            }
+
+            // Read outside of the lock, so that readers don't block flushes or
+            // each other. Records are never changed once written, so the
+            // position stays valid for as long as the channel is open.
+            try {
+                byte[] value = this.readValue(channel, position);
+                synchronized (this) {
+                    // Don't cache the value if the key has been changed since
+                    if (channel == this.channel && position.equals(this.index.get(key)) && !this.pending.containsKey(key)
+                            && !this.flushing.containsKey(key)) {
+                        this.cache.put(key, value);
+                    }
+                }
+                return Optional.of(value);
+            } catch (ClosedChannelException e) {
+                synchronized (this) {
+                    if (channel != this.channel) {
+                        // The log has been replaced by a compaction, look the
+                        // key up again
+                        continue;
+                    }
+                }
+                this.logger.error("An exception has occurred while attempting to read '{}' from the data store!", key, e);
+                return Optional.empty();
+            } catch (IOException e) {
+                this.logger.error("An exception has occurred while attempting to read '{}' from the data store!", key, e);
+                return Optional.empty();
+            }
+        }
+    }
+
+    public Optional<String> getString(String key) {
+        Optional<byte[]> value = this.get(key);
+        if (value.isPresent()) {
+            return Optional.of(new String(value.get(), StandardCharsets.UTF_8));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a value for the specified key, replacing any previous value. The
+     * value is written to disk asynchronously.
+     *
+     * @param key The key
+     * @param value The value
+     */
+    public synchronized void put(String key, byte[] value) {
+        checkNotNull(key, "Key cannot be null!");
+        checkNotNull(value, "Value cannot be null!");
+        byte[] copy = value.clone();
+        this.pending.put(key, copy);
+        this.cache.put(key, copy);
+        this.checkPending();
+    }
+
+    public void putString(String key, String value) {
+        checkNotNull(value, "Value cannot be null!");
+        this.put(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Removes the value stored for the specified key, if any.
+     *
+     * @param key The key
+     */
+    public synchronized void remove(String key) {
+        checkNotNull(key, "Key cannot be null!");
+        this.pending.put(key, null);
+        this.cache.remove(key);
+        this.checkPending();
+    }
+
+    public boolean contains(String key) {
+        return this.get(key).isPresent();
+    }
+
+    /**
+     * Gets a copy of all of the keys currently in the data store.
+     *
+     * @return The keys
+     */
+    public synchronized Set<String> getKeys() {
+        Set<String> keys = new HashSet<>(this.index.keySet());
+        this.applyKeys(keys, this.flushing);
+        this.applyKeys(keys, this.pending);
+        return keys;
+    }
+
+    private void applyKeys(Set<String> keys, Map<String, byte[]> writes) {
+        for (Map.Entry<String, byte[]> entry : writes.entrySet()) {
+            if (entry.getValue() == null) {
+                keys.remove(entry.getKey());
+            } else {
+                keys.add(entry.getKey());
+            }
+        }
+    }
+
+    private void checkPending() {
+        // Don't wait for the next interval if there is a lot to write
+        if (this.pending.size() >= CoreSettings.dataStoreBatchSize && !this.flushQueued) {
+            this.flushQueued = true;
+            Sponge.getScheduler().createTaskBuilder().execute(task -> this.flush()).async().submit(this.container.getPlugin());
+        }
+    }
+
+    /**
+     * Writes all pending writes to the log, and compacts the log if needed.
+     * This is done automatically, however it may be called to make sure that
+     * everything has been written.
+     */
+    public void flush() {
+        synchronized (this.flushLock) {
+            synchronized (this) {
+                this.flushQueued = false;
+                if (this.pending.isEmpty() || this.channel == null) {
+                    return;
+                }
+                this.flushing = this.pending;
+                this.pending = new LinkedHashMap<>();
+            }
+
+            // Write the whole batch at once
+            Map<String, Long> positions = new HashMap<>();
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(this.batchLength(this.flushing));
+                long position = this.writePosition;
+                for (Map.Entry<String, byte[]> entry : this.flushing.entrySet()) {
+                    positions.put(entry.getKey(), position + buffer.position());
+                    byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    buffer.putInt(key.length);
+                    buffer.putInt(entry.getValue() == null ? TOMBSTONE : entry.getValue().length);
+                    buffer.put(key);
+                    if (entry.getValue() != null) {
+                        buffer.put(entry.getValue());
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer, position + buffer.position());
+                }
+                this.channel.force(false);
+                this.writePosition = position + buffer.limit();
+            } catch (IOException e) {
+                this.logger.error("An exception has occurred while attempting to write to the data store!", e);
+                synchronized (this) {
+                    // Put the writes back in front of any newer ones, so that
+                    // they are retried on the next flush
+                    this.flushing.putAll(this.pending);
+                    this.pending = this.flushing;
+                    this.flushing = new LinkedHashMap<>();
+                }
+                return;
+            }
+
+            synchronized (this) {
+                for (Map.Entry<String, byte[]> entry : this.flushing.entrySet()) {
+                    Long previous;
+                    if (entry.getValue() == null) {
+                        previous = this.index.remove(entry.getKey());
+                        this.deadBytes += HEADER_LENGTH + entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+                    } else {
+                        previous = this.index.put(entry.getKey(), positions.get(entry.getKey()));
+                    }
+                    if (previous != null) {
+                        this.deadBytes += this.recordLengthUnchecked(previous);
+                    }
+                }
+                this.flushing = new LinkedHashMap<>();
+            }
+
+            if (this.deadBytes >= CoreSettings.dataStoreCompactionThreshold && this.deadBytes > this.writePosition / 2) {
+                this.compact();
+            }
+        }
+    }
+
+    private int batchLength(Map<String, byte[]> writes) {
+        int length = 0;
+        for (Map.Entry<String, byte[]> entry : writes.entrySet()) {
+            length += HEADER_LENGTH + entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+            if (entry.getValue() != null) {
+                length += entry.getValue().length;
+            }
+        }
+        return length;
+    }
+
+    // Must only be called by the flushing thread, while holding the flush lock
+    private void compact() {
+        this.logger.info("Compacting the data store, {} of {} byte(s) are unused.", this.deadBytes, this.writePosition);
+        Path compactPath = this.logPath.resolveSibling(this.logPath.getFileName().toString() + ".compact");
+        Map<String, Long> oldIndex;
+        synchronized (this) {
+            oldIndex = new HashMap<>(this.index);
+        }
+
+        Map<String, Long> newIndex = new HashMap<>();
+        long position = 0;
+        try (FileChannel compactChannel = FileChannel.open(compactPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Long> entry : oldIndex.entrySet()) {
+                int length = this.recordLength(this.channel, entry.getValue());
+                ByteBuffer record = ByteBuffer.allocate(length);
+                this.readFully(this.channel, record, entry.getValue());
+                record.flip();
+                while (record.hasRemaining()) {
+                    compactChannel.write(record, position + record.position());
+                }
+                newIndex.put(entry.getKey(), position);
+                position += length;
+            }
+            compactChannel.force(false);
+        } catch (IOException e) {
+            this.logger.error("An exception has occurred while attempting to compact the data store!", e);
+            return;
+        }
+
+        synchronized (this) {
+            try {
+                this.channel.close();
+                Files.move(compactPath, this.logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                this.channel = FileChannel.open(this.logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.index = newIndex;
+                this.writePosition = position;
+                this.deadBytes = 0;
+            } catch (IOException e) {
+                this.logger.error("An exception has occurred while attempting to replace the data store log!", e);
+                try {
+                    // Fall back to the old log, which is still complete
+                    this.channel = FileChannel.open(this.logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                } catch (IOException e2) {
+                    this.channel = null;
+                    this.logger.error("Could not reopen the data store log! Writes will not be saved.", e2);
+                }
+            }
+        }
+        this.logger.info("Data store compacted to {} byte(s).", position);
+    }
+
+    private byte[] readValue(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        this.readFully(channel, header, position);
+        header.flip();
+        int keyLength = header.getInt();
+        ByteBuffer value = ByteBuffer.allocate(header.getInt());
+        this.readFully(channel, value, position + HEADER_LENGTH + keyLength);
+        return value.array();
+    }
+
+    private int recordLength(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        this.readFully(channel, header, position);
+        header.flip();
+        return HEADER_LENGTH + header.getInt() + Math.max(header.getInt(), 0);
+    }
+
+    private int recordLengthUnchecked(long position) {
+        try {
+            return this.recordLength(this.channel, position);
+        } catch (IOException e) {
+            // Only used for deciding when to compact, so this is not critical
+            return 0;
+        }
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the data store log!");
+            }
+        }
+    }
+
+    /**
+     * Writes everything that is pending and closes the data store.
+     */
+    public void close() {
+        this.flushTask.cancel();
+        this.flush();
+        synchronized (this) {
+            try {
+                if (this.channel != null) {
+                    this.channel.close();
+                }
+            } catch (IOException e) {
+                this.logger.error("An exception has occurred while attempting to close the data store!", e);
+            }
+        }
+    }
+}
@@ -25,9 +25,7 @@
 
 package io.github.narikiro.core.internal;
 
-import io.github.narikiro.api.command.Command;
-import io.github.narikiro.api.config.Config;
-import io.github.narikiro.api.plugin.XtraCorePluginContainer;
+import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
@@ -41,6 +39,8 @@ import java.nio.file.Paths;
 public class Internals {
 
     public static final Path LOG_DIRECTORY = Paths.get("logs", "xtracore-logs").toAbsolutePath();
+    public static final Path DATA_DIRECTORY = Paths.get("xtracore-data").toAbsolutePath();
+    public static final Path LOCK_DIRECTORY = Paths.get("config", "xtracore", "locks").toAbsolutePath();
     public static final String LOG_HEADER = "======================================================";
     public static Logger globalLogger;
 
@@ -56,22 +56,13 @@ public class Internals {
      * @throws IllegalAccessException
      * @throws InstantiationException
      */
-    public static Object checkIfAlreadyExists(XtraCorePluginContainer container, Class<?> clazz)
+    public static Object checkIfAlreadyExists(XtraCorePluginContainerImpl container, Class<?> clazz)
             throws InstantiationException, IllegalAccessException {
-        if (container.getCommandHandler().isPresent()) {
-            for (Command command : container.getCommandHandler().get().getCommands()) {
-                if (clazz.equals(command.getClass())) {
-                    return command;
-                }
-            }
+        Object instance = container.instances.get(clazz);
+        if (instance == null) {
+            instance = clazz.newInstance();
+            container.instances.put(clazz, instance);
         }
-        if (container.getConfigHandler().isPresent()) {
-            for (Config config : container.getConfigHandler().get().getConfigs()) {
-                if (clazz.equals(config.getClass())) {
-                    return config;
-                }
-            }
-        }
-        return clazz.newInstance();
+        return instance;
     }
 }
@@ -29,21 +29,39 @@ import io.github.narikiro.api.command.Command;
 import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.command.base.CommandBase;
 import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.command.CommandGraph;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
+import io.github.narikiro.core.text.ContentSource;
+import io.github.narikiro.core.util.stats.LatencyHistogram;
+import io.github.narikiro.core.util.store.CommandStore;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.command.args.CommandElement;
 import org.spongepowered.api.command.args.GenericArguments;
-import org.spongepowered.api.service.pagination.PaginationList;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.format.TextColors;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nullable;
 
 // Weird name, but yes this is /xtracore command
 @RegisterCommand(childOf = XtraCoreCommand.class)
 public class CommandCommand extends CommandBase<CommandSource> {
 
+    private static final int STATS_LINES = 2;
+
+    // The rendered info of each command, for the version of the command
+    // graph they were rendered from
+    private Map<Command, List<Text>> pages = new ConcurrentHashMap<>();
+    private volatile int graphVersion = -1;
+
     @Override
     public String[] aliases() {
         return new String[] {"command", "c"};
@@ -84,35 +102,28 @@ public class CommandCommand extends CommandBase<CommandSource> {
         // and we have to match the parent command so that we do not
         // accidentally hit a child command from another plugin.
         String command = args.<String>getOne("command").get();
-        for (Command command2 : CoreImpl.instance.getCommandRegistry().getAllCommands()) {
-            for (String alias : command2.aliases()) {
-                // If there is a space, assume user wants to specify
-                // a child command
-                if (command.contains(" ")) {
-                    // Split by the space
-                    String[] splitCommand = command.split(" ");
-                    // If too many spaces...not what we want
-                    if (splitCommand.length > 2) {
-                        src.sendMessage(Text.of(TextColors.RED, "Too many arguments!"));
-                    }
-                    String parentCommand = splitCommand[0];
-                    String childCommand = splitCommand[1];
-                    // Now we can check if the child command is the
-                    // alias.
-                    if (alias.equalsIgnoreCase(childCommand)) {
-                        Command parentCommand2 = CoreImpl.instance.getCommandRegistry()
-                                .getCommand(command2.getClass().getAnnotation(RegisterCommand.class).childOf()).get();
-                        for (String alias2 : parentCommand2.aliases()) {
-                            if (parentCommand.equalsIgnoreCase(alias2)) {
-                                sendCommandInfo(src, command2, parentCommand2);
-                                return CommandResult.success();
-                            }
-                        }
+        CommandRegistryImpl registry = (CommandRegistryImpl) CoreImpl.instance.getCommandRegistry();
+        CommandGraph graph = registry.getGraph();
+        // If there is a space, assume user wants to specify a child command
+        String[] splitCommand = command.trim().split("\\s+");
+        if (splitCommand.length > 2) {
+            src.sendMessage(Text.of(TextColors.RED, "Too many arguments!"));
+            return CommandResult.empty();
+        }
+        String alias = splitCommand[splitCommand.length - 1];
+        for (Command command2 : registry.getCommandsByAlias(alias)) {
+            Optional<Command> optionalParent = graph.getParent(command2);
+            if (splitCommand.length == 1) {
+                this.sendCommandInfo(src, command2, graph);
+                return CommandResult.success();
+            }
+            // Now we can check if the parent command matches as well
+            if (optionalParent.isPresent()) {
+                for (String alias2 : optionalParent.get().aliases()) {
+                    if (splitCommand[0].equalsIgnoreCase(alias2)) {
+                        this.sendCommandInfo(src, command2, graph);
+                        return CommandResult.success();
                     }
-                } else if (alias.equalsIgnoreCase(command)) {
-                    // No space, assume not a child command
-                    sendCommandInfo(src, command2, null);
-                    return CommandResult.success();
                 }
             }
         }
@@ -120,38 +131,63 @@ public class CommandCommand extends CommandBase<CommandSource> {
         return CommandResult.empty();
     }
 
-    private static void sendCommandInfo(CommandSource source, Command command, @Nullable Command parentCommand) {
-        StringBuilder sb = new StringBuilder();
-        // If the aliases are greater than one, do a for
-        // loop
-        if (command.aliases().length > 1) {
-            for (int i = 0; i < command.aliases().length; i++) {
-                // If this is the last one in the array,
-                // do not add a comma
-                if (i == command.aliases().length - 1) {
-                    sb.append(command.aliases()[i]);
-                } else {
-                    sb.append(command.aliases()[i] + ", ");
+    private void sendCommandInfo(CommandSource source, Command command, CommandGraph graph) {
+        int version = graph.getVersion();
+        if (version != this.graphVersion) {
+            // Parents may have changed since the pages were rendered
+            this.pages.clear();
+            this.graphVersion = version;
+        }
+        List<Text> lines = this.pages.computeIfAbsent(command, k -> renderInfo(command, graph.getParent(command).orElse(null)));
+        CoreImpl.instance.getPagedOutput().send(source, lines.get(0), new ContentSource() {
+
+            @Override
+            public int size() {
+                return lines.size() - 1 + STATS_LINES;
+            }
+
+            @Override
+            public Text get(int index) {
+                if (index < lines.size() - 1) {
+                    return lines.get(index + 1);
                 }
+                return getStatsLine(command, index - lines.size() + 1);
             }
-        } else {
-            // Else just append the only alias
-            sb.append(command.aliases()[0]);
+        });
+    }
+
+    // The title, followed by the lines that only change once the command
+    // graph does
+    private static List<Text> renderInfo(Command command, @Nullable Command parentCommand) {
+        String[] aliases = command.aliases();
+        List<Text> lines = new ArrayList<>(7);
+        lines.add(Text.of(TextColors.GREEN, aliases[0]));
+        lines.add(Text.of(TextColors.BLUE, "Aliases: ", TextColors.GREEN, String.join(", ", aliases)));
+        lines.add(Text.of(TextColors.BLUE, "Permission: ", TextColors.GREEN, command.permission() != null ? command.permission() : "None."));
+        lines.add(Text.of(TextColors.BLUE, "Description: ", TextColors.GREEN, command.description() != null ? command.description() : "None."));
+        lines.add(Text.of(TextColors.BLUE, "Usage: ", TextColors.GREEN, command.usage() != null ? command.usage() : "None."));
+        lines.add(Text.of(TextColors.BLUE, "Is async: ", TextColors.GREEN,
+                CoreImpl.instance.getCommandAnnotationHelper().isAsync(command.getClass()) ? "True." : "False."));
+        lines.add(parentCommand != null ? Text.of(TextColors.BLUE, "Parent command: ", TextColors.GREEN, parentCommand.aliases()[0])
+                : Text.of(TextColors.GREEN, "No parent command."));
+        return lines;
+    }
+
+    private static Text getStatsLine(Command command, int index) {
+        switch (index) {
+            case 0:
+                Optional<CommandStore> store = ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getStore(command.getClass());
+                return Text.of(TextColors.BLUE, "State: ", TextColors.GREEN, store.isPresent() ? store.get().state() : "Unknown.");
+            case 1:
+                Optional<LatencyHistogram> histogram = CoreImpl.instance.getCommandStats().getHistogram(command.getClass());
+                if (!histogram.isPresent()) {
+                    return Text.of(TextColors.BLUE, "Executions: ", TextColors.GREEN, "None yet.");
+                }
+                return Text.of(TextColors.BLUE, "Executions: ", TextColors.GREEN, histogram.get().getCount(), ", ",
+                        TimeUnit.NANOSECONDS.toMicros(histogram.get().getMean()), "\u00b5s mean, <",
+                        TimeUnit.NANOSECONDS.toMicros(histogram.get().getPercentile(0.99)), "\u00b5s p99");
+            default:
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + STATS_LINES);
         }
-        String permission = command.permission() != null ? command.permission() : "None.";
-        String description = command.description() != null ? command.description() : "None.";
-        String usage = command.usage() != null ? command.usage() : "None.";
-        PaginationList.builder()
-                .title(Text.of(TextColors.GREEN, command.aliases()[0]))
-                .padding(Text.of(TextColors.GOLD, "-="))
-                .contents(Text.of(TextColors.BLUE, "Aliases: ", TextColors.GREEN, sb.toString()),
-                        Text.of(TextColors.BLUE, "Permission: ", TextColors.GREEN, permission),
-                        Text.of(TextColors.BLUE, "Description: ", TextColors.GREEN, description),
-                        Text.of(TextColors.BLUE, "Usage: ", TextColors.GREEN, usage),
-                        Text.of(TextColors.BLUE, "Is async: ", TextColors.GREEN,
-                                CoreImpl.instance.getCommandAnnotationHelper().isAsync(command.getClass()) ? "True." : "False."),
-                        parentCommand != null ? Text.of(TextColors.BLUE, "Parent command: ", TextColors.GREEN, parentCommand.aliases()[0])
-                                : Text.of(TextColors.GREEN, "No parent command."))
-                .sendTo(source);
     }
 }
@@ -0,0 +1,90 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.command;
+
+import io.github.narikiro.api.command.annotation.RegisterCommand;
+import io.github.narikiro.api.command.base.CommandBase;
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.logger.ErrorAggregator.ErrorStats;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.service.pagination.PaginationList;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RegisterCommand(childOf = XtraCoreCommand.class)
+public class ErrorsCommand extends CommandBase<CommandSource> {
+
+    @Override
+    public String[] aliases() {
+        return new String[] {"errors"};
+    }
+
+    @Override
+    public String permission() {
+        return "xtracore.errors";
+    }
+
+    @Override
+    public String description() {
+        return "Lists the errors that have occurred while executing commands.";
+    }
+
+    @Override
+    public CommandElement[] args() {
+        return null;
+    }
+
+    @Override
+    public String usage() {
+        return null;
+    }
+
+    @Override
+    public CommandResult executeCommand(CommandSource src, CommandContext args) throws Exception {
+        List<Text> contents = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (ErrorStats error : CoreImpl.instance.getErrorAggregator().getStats()) {
+            contents.add(Text.of(TextColors.BLUE, error.getSource(), ": ", TextColors.RED, error.getException(), TextColors.GREEN, " x",
+                    error.getTotal(), TextColors.GRAY, " (last " + TimeUnit.MILLISECONDS.toSeconds(now - error.getLastSeen()) + "s ago)"));
+        }
+        if (contents.isEmpty()) {
+            contents.add(Text.of(TextColors.GREEN, "No errors have occurred."));
+        }
+        PaginationList.builder()
+                .padding(Text.of(TextColors.GOLD, "-="))
+                .title(Text.of(TextColors.GREEN, "Errors"))
+                .contents(contents)
+                .build().sendTo(src);
+        return CommandResult.success();
+    }
+}
@@ -25,18 +25,34 @@
 
 package io.github.narikiro.core.internal.command;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.action.TextActions;
+import org.spongepowered.api.text.format.TextColors;
+import io.github.narikiro.api.command.Command;
 import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.command.base.CommandBase;
+import io.github.narikiro.api.command.state.CommandState;
 import io.github.narikiro.core.CoreImpl;
 import io.github.narikiro.core.XtraCore;
+import io.github.narikiro.core.command.CommandGraph;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
+import io.github.narikiro.core.text.ContentSource;
+import io.github.narikiro.core.util.store.CommandStore;
 
 @RegisterCommand(childOf = XtraCoreCommand.class)
 public class HelpCommand extends CommandBase<CommandSource> {
 
+    private static final int MAX_RESULTS = 500;
+
     @Override
     public String[] aliases() {
         return new String[] {"help"};
@@ -49,22 +65,68 @@ public class HelpCommand extends CommandBase<CommandSource> {
 
     @Override
     public String description() {
-        return "Provides a help list for XtraCore commands.";
+        return "Provides a help list for XtraCore commands, or searches the commands of all plugins.";
     }
 
     @Override
     public CommandElement[] args() {
-        return null;
+        return new CommandElement[] {GenericArguments.optional(GenericArguments.remainingJoinedStrings(Text.of("query")))};
     }
 
     @Override
     public String usage() {
-        return null;
+        return "[query]";
     }
 
     @Override
     public CommandResult executeCommand(CommandSource src, CommandContext args) throws Exception {
-        CoreImpl.instance.getHelpPaginationHandler(XtraCore.class).get().sendList(src);
+        Optional<String> query = args.getOne("query");
+        if (!query.isPresent()) {
+            CoreImpl.instance.getHelpPaginationHandler(XtraCore.class).get().sendList(src);
+            return CommandResult.success();
+        }
+        CommandRegistryImpl registry = (CommandRegistryImpl) CoreImpl.instance.getCommandRegistry();
+        CommandGraph graph = registry.getGraph();
+        List<Command> results = new ArrayList<>();
+        for (Command command : registry.getSearchIndex().search(query.get(), MAX_RESULTS)) {
+            if (canUse(src, command, graph)) {
+                results.add(command);
+            }
+        }
+        if (results.isEmpty()) {
+            src.sendMessage(Text.of(TextColors.RED, "Could not find any command matching ", TextColors.BLUE, query.get(), TextColors.RED, "!"));
+            return CommandResult.empty();
+        }
+        CoreImpl.instance.getPagedOutput().send(src, Text.of(TextColors.GREEN, "Search: ", TextColors.GOLD, query.get()), new ContentSource() {
+
+            @Override
+            public int size() {
+                return results.size();
+            }
+
+            @Override
+            public Text get(int index) {
+                Command command = results.get(index);
+                String commandString = "/" + graph.getPath(command) + (command.usage() != null ? " " + command.usage() : "");
+                return Text.builder().append(Text.of(TextColors.GOLD, commandString))
+                        .append(command.description() != null ? Text.of(" - ", TextColors.GREEN, command.description()) : Text.EMPTY)
+                        .onClick(TextActions.suggestCommand("/" + graph.getPath(command) + " ")).build();
+            }
+        });
         return CommandResult.success();
     }
+
+    private static boolean canUse(CommandSource src, Command command, CommandGraph graph) {
+        // Disabled commands are left out, like in the help lists
+        Optional<CommandStore> store = ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getStore(command.getClass());
+        if (store.isPresent() && store.get().state() == CommandState.DISABLED) {
+            return false;
+        }
+        for (Command cmd = command; cmd != null; cmd = graph.getParent(cmd).orElse(null)) {
+            if (cmd.permission() != null && !src.hasPermission(cmd.permission())) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
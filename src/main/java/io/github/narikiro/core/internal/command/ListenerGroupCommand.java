@@ -0,0 +1,107 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.command;
+
+import io.github.narikiro.api.command.annotation.RegisterCommand;
+import io.github.narikiro.api.command.base.CommandBase;
+import io.github.narikiro.api.plugin.XtraCorePluginContainer;
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.listener.ListenerHandlerImpl;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@RegisterCommand(childOf = XtraCoreCommand.class)
+public class ListenerGroupCommand extends CommandBase<CommandSource> {
+
+    @Override
+    public String[] aliases() {
+        return new String[] {"listenergroup"};
+    }
+
+    @Override
+    public String permission() {
+        return "xtracore.listenergroup";
+    }
+
+    @Override
+    public String description() {
+        return "Shows, enables or disables a listener group or class until the next reload.";
+    }
+
+    @Override
+    public CommandElement[] args() {
+        Map<String, Boolean> states = new HashMap<>();
+        states.put("enable", true);
+        states.put("disable", false);
+        return new CommandElement[] {GenericArguments.string(Text.of("group")),
+                GenericArguments.optional(GenericArguments.choices(Text.of("state"), states))};
+    }
+
+    @Override
+    public String usage() {
+        return "<group> [enable|disable]";
+    }
+
+    @Override
+    public CommandResult executeCommand(CommandSource src, CommandContext args) throws Exception {
+        String group = args.<String>getOne("group").get();
+        Optional<Boolean> state = args.getOne("state");
+        int matches = 0;
+        boolean enabled = false;
+        for (XtraCorePluginContainer container : CoreImpl.instance.getPluginHandler().getContainers()) {
+            if (!container.getListenerHandler().isPresent()) {
+                continue;
+            }
+            ListenerHandlerImpl handler = (ListenerHandlerImpl) container.getListenerHandler().get();
+            if (state.isPresent()) {
+                matches += handler.setEnabled(group, state.get());
+            } else if (handler.contains(group)) {
+                matches++;
+                enabled |= handler.isEnabled(group);
+            }
+        }
+        if (matches == 0) {
+            src.sendMessage(Text.of(TextColors.RED, "Could not find the listener group or class ", TextColors.BLUE, group, TextColors.RED, "!"));
+            return CommandResult.empty();
+        }
+        if (!state.isPresent()) {
+            src.sendMessage(Text.of(TextColors.BLUE, group, TextColors.GREEN, " is ", TextColors.GOLD, enabled ? "enabled" : "disabled"));
+            return CommandResult.success();
+        }
+        src.sendMessage(Text.of(TextColors.BLUE, group, TextColors.GREEN, " is now ", TextColors.GOLD, state.get() ? "enabled" : "disabled",
+                TextColors.GREEN, " until the next reload."));
+        return CommandResult.success();
+    }
+}
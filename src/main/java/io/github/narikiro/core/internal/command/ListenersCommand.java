@@ -0,0 +1,111 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.command;
+
+import io.github.narikiro.api.command.annotation.RegisterCommand;
+import io.github.narikiro.api.command.base.CommandBase;
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.listener.AsyncListenerExecutor;
+import io.github.narikiro.core.listener.ListenerTimings;
+import io.github.narikiro.core.listener.ListenerTimings.ListenerStats;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.service.pagination.PaginationList;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RegisterCommand(childOf = XtraCoreCommand.class)
+public class ListenersCommand extends CommandBase<CommandSource> {
+
+    private static final int LIMIT = 10;
+
+    @Override
+    public String[] aliases() {
+        return new String[] {"listeners"};
+    }
+
+    @Override
+    public String permission() {
+        return "xtracore.listeners";
+    }
+
+    @Override
+    public String description() {
+        return "Lists the slowest listeners of each plugin, or of the specified plugin, and the asynchronous listener metrics.";
+    }
+
+    @Override
+    public CommandElement[] args() {
+        return new CommandElement[] {GenericArguments.optional(GenericArguments.string(Text.of("plugin")))};
+    }
+
+    @Override
+    public String usage() {
+        return "[plugin]";
+    }
+
+    @Override
+    public CommandResult executeCommand(CommandSource src, CommandContext args) throws Exception {
+        ListenerTimings timings = CoreImpl.instance.getListenerTimings();
+        List<Text> contents = new ArrayList<>();
+        if (!timings.isEnabled()) {
+            contents.add(Text.of(TextColors.RED, "Listener timings are disabled. Enable listeners.timings in xtracore.conf and restart."));
+        } else {
+            contents.add(Text.of(TextColors.GRAY, "Listeners left to Sponge, such as those using event filters, are not timed."));
+        }
+        Optional<String> plugin = args.getOne("plugin");
+        Iterable<String> ids = plugin.isPresent() ? Collections.singletonList(plugin.get()) : timings.getPluginIds();
+        for (String id : ids) {
+            contents.add(Text.of(TextColors.GOLD, id, ":"));
+            for (ListenerStats stats : timings.getSlowest(id, LIMIT)) {
+                contents.add(Text.of(TextColors.BLUE, stats.getSource(), TextColors.GREEN, " ", stats.getHistogram().getCount(), " call(s), ",
+                        TimeUnit.NANOSECONDS.toMillis(stats.getHistogram().getTotal()), "ms total, ", stats.getHistogram().getMean(),
+                        "ns mean, <", stats.getHistogram().getPercentile(0.99), "ns p99"));
+            }
+        }
+        AsyncListenerExecutor executor = CoreImpl.instance.getAsyncListenerExecutor();
+        if (executor.getSubmitted() != 0 || executor.getDropped() != 0) {
+            contents.add(Text.of(TextColors.GOLD, "Asynchronous listeners:"));
+            contents.add(Text.of(TextColors.GREEN, executor.getCompleted(), " of ", executor.getSubmitted(), " handled, ", executor.getQueued(),
+                    " queued, ", executor.getDropped(), " dropped, ", executor.getCallerRuns(), " run on the firing thread"));
+        }
+        PaginationList.builder()
+                .padding(Text.of(TextColors.GOLD, "-="))
+                .title(Text.of(TextColors.GREEN, "Listener Timings"))
+                .contents(contents)
+                .build().sendTo(src);
+        return CommandResult.success();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.command;
+
+import io.github.narikiro.api.command.annotation.RegisterCommand;
+import io.github.narikiro.api.command.base.CommandBase;
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.logger.LoggerHandlerImpl;
+import io.github.narikiro.core.logger.Subsystem;
+import org.apache.logging.log4j.Level;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+@RegisterCommand(childOf = XtraCoreCommand.class)
+public class LogCommand extends CommandBase<CommandSource> {
+
+    @Override
+    public String[] aliases() {
+        return new String[] {"log"};
+    }
+
+    @Override
+    public String permission() {
+        return "xtracore.log";
+    }
+
+    @Override
+    public String description() {
+        return "Shows or changes the log level of a plugin or one of its subsystems until the next reload, and shows the logging queue.";
+    }
+
+    @Override
+    public CommandElement[] args() {
+        Map<String, Subsystem> subsystems = new HashMap<>();
+        for (Subsystem subsystem : Subsystem.values()) {
+            subsystems.put(subsystem.getId(), subsystem);
+        }
+        Map<String, Level> levels = new HashMap<>();
+        for (Level level : new Level[] {Level.OFF, Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE}) {
+            levels.put(level.name().toLowerCase(Locale.ROOT), level);
+        }
+        return new CommandElement[] {GenericArguments.string(Text.of("plugin")),
+                GenericArguments.optionalWeak(GenericArguments.choices(Text.of("subsystem"), subsystems)),
+                GenericArguments.optional(GenericArguments.choices(Text.of("level"), levels))};
+    }
+
+    @Override
+    public String usage() {
+        return "<plugin> [subsystem] [level]";
+    }
+
+    @Override
+    public CommandResult executeCommand(CommandSource src, CommandContext args) throws Exception {
+        LoggerHandlerImpl handler = (LoggerHandlerImpl) CoreImpl.instance.getLoggerHandler();
+        String id = args.<String>getOne("plugin").get();
+        Subsystem subsystem = args.<Subsystem>getOne("subsystem").orElse(null);
+        String name = subsystem == null ? id : id + "." + subsystem.getId();
+        if (!handler.getPluginIds().contains(id)) {
+            src.sendMessage(Text.of(TextColors.RED, "Could not find the logger of ", TextColors.BLUE, id, TextColors.RED, "!"));
+            return CommandResult.empty();
+        }
+
+        Optional<Level> level = args.getOne("level");
+        if (!level.isPresent()) {
+            src.sendMessage(Text.of(TextColors.BLUE, name, TextColors.GREEN, " logs at ", TextColors.GOLD, handler.getLevel(id, subsystem)));
+            Optional<LoggerHandlerImpl.AsyncLogMetrics> metrics = handler.getAsyncMetrics();
+            if (metrics.isPresent()) {
+                src.sendMessage(Text.of(TextColors.BLUE, "Logging queue: ", TextColors.GOLD, metrics.get().getQueued(), TextColors.GREEN, " of ",
+                        TextColors.GOLD, metrics.get().getCapacity(), TextColors.GREEN, " queued, ", TextColors.GOLD, metrics.get().getDropped(),
+                        TextColors.GREEN, " dropped."));
+            } else {
+                src.sendMessage(Text.of(TextColors.BLUE, "Logging queue: ", TextColors.GREEN, "Logging is synchronous."));
+            }
+            return CommandResult.success();
+        }
+        handler.setLevel(id, subsystem, level.get());
+        src.sendMessage(Text.of(TextColors.BLUE, name, TextColors.GREEN, " now logs at ", TextColors.GOLD, level.get(),
+                TextColors.GREEN, " until the next reload."));
+        return CommandResult.success();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.command;
+
+import io.github.narikiro.api.command.annotation.RegisterCommand;
+import io.github.narikiro.api.command.base.CommandBase;
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.text.PagedOutput;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.format.TextColors;
+
+@RegisterCommand(childOf = XtraCoreCommand.class)
+public class PageCommand extends CommandBase<CommandSource> {
+
+    @Override
+    public String[] aliases() {
+        return new String[] {"page"};
+    }
+
+    @Override
+    public String permission() {
+        return "xtracore.page";
+    }
+
+    @Override
+    public String description() {
+        return "Shows another page of the last XtraCore output.";
+    }
+
+    @Override
+    public CommandElement[] args() {
+        return new CommandElement[] {GenericArguments.string(Text.of("page"))};
+    }
+
+    @Override
+    public String usage() {
+        return "<page|next|previous>";
+    }
+
+    @Override
+    public CommandResult executeCommand(CommandSource src, CommandContext args) throws Exception {
+        PagedOutput output = CoreImpl.instance.getPagedOutput();
+        String page = args.<String>getOne("page").get();
+        boolean sent;
+        if (page.equalsIgnoreCase("next")) {
+            sent = output.move(src, 1);
+        } else if (page.equalsIgnoreCase("previous") || page.equalsIgnoreCase("prev")) {
+            sent = output.move(src, -1);
+        } else {
+            try {
+                sent = output.sendPage(src, Integer.parseInt(page));
+            } catch (NumberFormatException e) {
+                src.sendMessage(Text.of(TextColors.RED, "Unknown page ", TextColors.BLUE, page, TextColors.RED, "!"));
+                return CommandResult.empty();
+            }
+        }
+        if (!sent) {
+            src.sendMessage(Text.of(TextColors.RED, "There is nothing to page through!"));
+            return CommandResult.empty();
+        }
+        return CommandResult.success();
+    }
+}
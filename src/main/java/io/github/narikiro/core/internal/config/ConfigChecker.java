@@ -25,39 +25,155 @@
 
 package io.github.narikiro.core.internal.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import io.github.narikiro.api.command.Command;
-import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.command.state.CommandState;
 import io.github.narikiro.api.config.Config;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
-import io.github.narikiro.api.util.command.EmptyCommand;
 import io.github.narikiro.core.CoreImpl;
 import io.github.narikiro.core.XtraCore;
+import io.github.narikiro.core.command.CommandGraph;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 
 public class ConfigChecker {
 
+    public static void coreConfig() {
+        // Here we will initialize the xtracore.conf file, for XtraCore's own
+        // settings.
+        Config coreConfig = CoreImpl.instance.getConfigHandler(XtraCore.class).get().getConfig(XtraCoreConfig.class).get();
+        coreConfig.load();
+        CommentedConfigurationNode root = coreConfig.rootNode();
+
+        CoreSettings.configSnapshots = checkDefault(root.getNode("config", "snapshots"), false,
+                "Whether to keep a binary snapshot next to each config file, which is loaded instead of the config when it has not changed.")
+                        .getBoolean();
+
+        CoreSettings.commandsNativeDispatcher = checkDefault(root.getNode("commands", "native-dispatcher"), CoreSettings.commandsNativeDispatcher,
+                "Whether XtraCore routes child commands itself instead of nesting them in Sponge's command specs. Requires a restart.")
+                        .getBoolean();
+
+        CommentedConfigurationNode dataStore = root.getNode("data-store");
+        CoreSettings.dataStoreCacheSize = checkDefault(dataStore.getNode("cache-size"), CoreSettings.dataStoreCacheSize,
+                "How many records of each plugin's data store are kept in memory.").getInt();
+        CoreSettings.dataStoreFlushInterval = checkDefault(dataStore.getNode("flush-interval"), CoreSettings.dataStoreFlushInterval,
+                "How often, in milliseconds, pending writes are written to disk.").getLong();
+        CoreSettings.dataStoreBatchSize = checkDefault(dataStore.getNode("batch-size"), CoreSettings.dataStoreBatchSize,
+                "How many pending writes cause them to be written to disk before the next interval.").getInt();
+        CoreSettings.dataStoreCompactionThreshold = checkDefault(dataStore.getNode("compaction-threshold"),
+                CoreSettings.dataStoreCompactionThreshold, "How many bytes of a data store log may be unused before it is compacted.").getLong();
+
+        CommentedConfigurationNode logging = root.getNode("logging");
+        CoreSettings.loggingAsync = checkDefault(logging.getNode("async"), CoreSettings.loggingAsync,
+                "Whether log files are written by a background thread instead of the thread logging. Requires a restart.").getBoolean();
+        CoreSettings.loggingQueueSize = checkDefault(logging.getNode("queue-size"), CoreSettings.loggingQueueSize,
+                "How many log events may wait for the background thread.").getInt();
+        CoreSettings.loggingDropWhenFull = checkDefault(logging.getNode("drop-when-full"), CoreSettings.loggingDropWhenFull,
+                "Whether to drop log events when the queue is full, instead of waiting for space.").getBoolean();
+        CoreSettings.loggingBufferSize = checkDefault(logging.getNode("buffer-size"), CoreSettings.loggingBufferSize,
+                "The size of the buffer of each log file, in bytes. The buffer is written once it is full.").getInt();
+        CoreSettings.loggingFlushInterval = checkDefault(logging.getNode("flush-interval"), CoreSettings.loggingFlushInterval,
+                "How often, in milliseconds, the buffers are written when logging asynchronously.").getLong();
+        CoreSettings.loggingPerPluginFiles = checkDefault(logging.getNode("per-plugin-files"), CoreSettings.loggingPerPluginFiles,
+                "Whether each plugin logs to its own file. If false, all plugins log to combined.log, tagged with the plugin id. "
+                        + "Requires a restart.").getBoolean();
+        CoreSettings.loggingErrorWindow = checkDefault(logging.getNode("error-window"), CoreSettings.loggingErrorWindow,
+                "How often, in milliseconds, repeats of an error are summarized. Only the first occurrence of an error is logged in full. "
+                        + "Requires a restart.").getLong();
+        CoreSettings.loggingJson = checkDefault(logging.getNode("json"), CoreSettings.loggingJson,
+                "Whether log files are written as one JSON object per line, with separate fields for the plugin, subsystem, command, "
+                        + "phase, duration and exception. Requires a restart.").getBoolean();
+
+        // Levels may be set for a whole plugin, or for its subsystems, for
+        // example myplugin = DEBUG or myplugin { level = INFO, command = DEBUG }
+        CommentedConfigurationNode levels = logging.getNode("levels");
+        CoreSettings.loggingDefaultLevel = checkDefault(levels.getNode("default"), "INFO",
+                "The level plugins log at, unless set for a plugin or subsystem below. The subsystems are scanner, command, config, "
+                        + "data, help and listener.").getString();
+        Map<String, String> loggingLevels = new HashMap<>();
+        for (Map.Entry<Object, ? extends CommentedConfigurationNode> entry : levels.getChildrenMap().entrySet()) {
+            String id = entry.getKey().toString();
+            if (id.equals("default")) {
+                continue;
+            }
+            if (entry.getValue().hasMapChildren()) {
+                for (Map.Entry<Object, ? extends CommentedConfigurationNode> entry2 : entry.getValue().getChildrenMap().entrySet()) {
+                    String key = entry2.getKey().toString();
+                    loggingLevels.put(key.equals("level") ? id : id + "." + key, entry2.getValue().getString());
+                }
+            } else {
+                loggingLevels.put(id, entry.getValue().getString());
+            }
+        }
+        CoreSettings.loggingLevels = loggingLevels;
+
+        CommentedConfigurationNode rolling = logging.getNode("rolling");
+        LogRetention retention = new LogRetention();
+        retention.maxSize = checkDefault(rolling.getNode("max-size"), CoreSettings.loggingRetention.maxSize,
+                "The size at which a log file is archived and a new one is started, such as 10 MB.").getString();
+        retention.interval = checkDefault(rolling.getNode("interval"), CoreSettings.loggingRetention.interval,
+                "How often a log file is archived and a new one is started: daily, hourly or never.").getString();
+        retention.maxFiles = checkDefault(rolling.getNode("max-files"), CoreSettings.loggingRetention.maxFiles,
+                "How many archived log files of each plugin are kept.").getInt();
+        retention.maxAge = checkDefault(rolling.getNode("max-age"), CoreSettings.loggingRetention.maxAge,
+                "The age at which archived log files are deleted, such as 30d or 12h.").getString();
+        retention.compress = checkDefault(rolling.getNode("compress"), CoreSettings.loggingRetention.compress,
+                "Whether archived log files are compressed with gzip.").getBoolean();
+        CoreSettings.loggingRetention = retention;
+
+        // Any of the rolling options may be overridden per plugin, for example
+        // plugins { myplugin { max-size = "50 MB" } }
+        CommentedConfigurationNode plugins = checkDefault(logging.getNode("plugins"), Collections.emptyMap(),
+                "Overrides of the rolling options for specific plugins, by plugin id.");
+        Map<String, LogRetention> pluginRetention = new HashMap<>();
+        for (Map.Entry<Object, ? extends CommentedConfigurationNode> entry : plugins.getChildrenMap().entrySet()) {
+            pluginRetention.put(entry.getKey().toString(), retention.withOverrides(entry.getValue()));
+        }
+        CoreSettings.loggingPluginRetention = pluginRetention;
+
+        CommentedConfigurationNode listeners = root.getNode("listeners");
+        CoreSettings.listenerTimings = checkDefault(listeners.getNode("timings"), CoreSettings.listenerTimings,
+                "Whether to measure how long each listener registered by XtraCore takes. Requires a restart.").getBoolean();
+        CoreSettings.listenerTimingsReportInterval = checkDefault(listeners.getNode("timings-report-interval"),
+                CoreSettings.listenerTimingsReportInterval,
+                "How often, in seconds, the listener timings are written to listener-timings.txt in the log directory. 0 to disable.").getLong();
+        CoreSettings.listenerAsyncThreads = checkDefault(listeners.getNode("async-threads"), CoreSettings.listenerAsyncThreads,
+                "How many threads run the handlers of asynchronous listeners. Requires a restart.").getInt();
+        CoreSettings.listenerAsyncQueueSize = checkDefault(listeners.getNode("async-queue-size"), CoreSettings.listenerAsyncQueueSize,
+                "How many events may wait for the asynchronous listener threads. Requires a restart.").getInt();
+        CoreSettings.listenerAsyncFullPolicy = checkDefault(listeners.getNode("async-full-policy"), CoreSettings.listenerAsyncFullPolicy,
+                "What happens to an event when the queue is full: drop, or caller-runs to handle it on the firing thread. Requires a restart.")
+                        .getString();
+        List<String> disabled = new ArrayList<>();
+        for (CommentedConfigurationNode node : checkDefault(listeners.getNode("disabled"), Collections.emptyList(),
+                "The listener groups or classes that should not be registered. Applied on reload.").getChildrenList()) {
+            disabled.add(node.getString());
+        }
+        CoreSettings.listenerDisabled = disabled;
+        coreConfig.save();
+    }
+
     public static void commandConfig() {
         // Here we will initialize the command.conf file, for customizing the
         // commands.
         Config commandConfig = CoreImpl.instance.getConfigHandler(XtraCore.class).get().getConfig(CommandsConfig.class).get();
         commandConfig.load();
+        CommandGraph graph = ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getGraph();
         for (Map.Entry<Command, XtraCorePluginContainer> entry : CoreImpl.instance.getCommandRegistry().getAllCommandMappings().entrySet()) {
             // Get a potential parent command, as we will include that in the
             // config option
-            Class<? extends Command> parentCommand = entry.getKey().getClass().getAnnotation(RegisterCommand.class).childOf();
+            Optional<Command> optionalParent = graph.getParent(entry.getKey());
             // Default to empty string if no parent
             String parentString = "";
-
-            if (!parentCommand.equals(EmptyCommand.class)) {
-                Optional<Command> optionalParent = CoreImpl.instance.getCommandRegistry().getCommand(parentCommand);
-                if (optionalParent.isPresent()) {
-                    parentString = optionalParent.get().aliases()[0] + "$";
-                }
+            if (optionalParent.isPresent()) {
+                parentString = optionalParent.get().aliases()[0] + "$";
             }
 
             CommentedConfigurationNode node = commandConfig.rootNode().getNode(entry.getValue().getPluginContainer().getId())
@@ -77,4 +193,14 @@ public class ConfigChecker {
         }
         commandConfig.save();
     }
+
+    private static CommentedConfigurationNode checkDefault(CommentedConfigurationNode node, Object value, String comment) {
+        // Only populate the node if it does not exist yet, otherwise keep
+        // whatever the user has set
+        if (node.isVirtual()) {
+            node.setValue(value);
+            node.setComment(comment);
+        }
+        return node;
+    }
 }
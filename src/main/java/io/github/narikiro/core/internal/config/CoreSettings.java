@@ -0,0 +1,83 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the values of XtraCore's own xtracore.conf file. These are read by
+ * {@link ConfigChecker#coreConfig()} once XtraCore's config handler has been
+ * initialized, and again on every reload. Until then, the defaults below are
+ * used.
+ */
+public class CoreSettings {
+
+    // config
+    public static boolean configSnapshots = false;
+    // commands
+    public static boolean commandsNativeDispatcher = false;
+    // data-store
+    public static int dataStoreCacheSize = 10000;
+    public static long dataStoreFlushInterval = 1000;
+    public static int dataStoreBatchSize = 1000;
+    public static long dataStoreCompactionThreshold = 16 * 1024 * 1024;
+    // logging
+    public static boolean loggingAsync = false;
+    public static int loggingQueueSize = 1024;
+    public static boolean loggingDropWhenFull = false;
+    public static int loggingBufferSize = 8192;
+    public static long loggingFlushInterval = 1000;
+    public static boolean loggingPerPluginFiles = true;
+    public static long loggingErrorWindow = 60000;
+    public static boolean loggingJson = false;
+    public static String loggingDefaultLevel = "INFO";
+    // By plugin id, or by <plugin id>.<subsystem>
+    public static Map<String, String> loggingLevels = new HashMap<>();
+    public static LogRetention loggingRetention = new LogRetention();
+    public static Map<String, LogRetention> loggingPluginRetention = new HashMap<>();
+    // listeners
+    public static boolean listenerTimings = false;
+    public static long listenerTimingsReportInterval = 300;
+    public static int listenerAsyncThreads = 2;
+    public static int listenerAsyncQueueSize = 4096;
+    public static String listenerAsyncFullPolicy = "drop";
+    // Group or class names
+    public static List<String> listenerDisabled = new ArrayList<>();
+
+    /**
+     * Gets the log retention of the specified plugin, which is the default
+     * one unless it has been overridden.
+     *
+     * @param id The id of the plugin
+     * @return The log retention
+     */
+    public static LogRetention getRetention(String id) {
+        return loggingPluginRetention.getOrDefault(id, loggingRetention);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.internal.config;
+
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+
+/**
+ * How the log file of a plugin is rolled over and how many old files are
+ * kept. The defaults are set in the logging.rolling section of xtracore.conf,
+ * and may be overridden for each plugin in the logging.plugins section.
+ */
+public class LogRetention {
+
+    // The size at which the file is rolled over, such as 10 MB
+    public String maxSize = "10 MB";
+    // daily, hourly or never
+    public String interval = "daily";
+    public int maxFiles = 10;
+    // The age at which old files are deleted, such as 30d
+    public String maxAge = "30d";
+    public boolean compress = true;
+
+    /**
+     * Creates a copy of this retention, with the values set in the specified
+     * node overriding the ones of this retention.
+     *
+     * @param node The node to read the overrides from
+     * @return The new retention
+     */
+    public LogRetention withOverrides(CommentedConfigurationNode node) {
+        LogRetention retention = new LogRetention();
+        retention.maxSize = node.getNode("max-size").getString(this.maxSize);
+        retention.interval = node.getNode("interval").getString(this.interval);
+        retention.maxFiles = node.getNode("max-files").getInt(this.maxFiles);
+        retention.maxAge = node.getNode("max-age").getString(this.maxAge);
+        retention.compress = node.getNode("compress").getBoolean(this.compress);
+        return retention;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.listener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.CoreSettings;
+
+/**
+ * Runs the handlers of {@link io.github.narikiro.core.listener.annotation.AsyncListener}
+ * methods on a small pool of threads, with a bounded queue. The pool is
+ * created once the first handler is submitted.
+ */
+public class AsyncListenerExecutor {
+
+    private volatile ThreadPoolExecutor executor;
+    // Dropped handlers are not counted as submitted
+    private LongAdder submitted = new LongAdder();
+    private LongAdder completed = new LongAdder();
+    private LongAdder dropped = new LongAdder();
+    private LongAdder callerRuns = new LongAdder();
+
+    public void submit(Runnable runnable) {
+        this.submitted.increment();
+        this.getExecutor().execute(() -> {
+            try {
+                runnable.run();
+            } finally {
+                this.completed.increment();
+            }
+        });
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor executor = this.executor;
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (this.executor != null) {
+                return this.executor;
+            }
+            AtomicInteger count = new AtomicInteger();
+            boolean drop = !CoreSettings.listenerAsyncFullPolicy.equalsIgnoreCase("caller-runs");
+            RejectedExecutionHandler handler = (runnable, executor) -> {
+                if (drop || executor.isShutdown()) {
+                    this.submitted.decrement();
+                    this.dropped.increment();
+                } else {
+                    // Slow down the firing thread rather than lose the event
+                    this.callerRuns.increment();
+                    runnable.run();
+                }
+            };
+            this.executor = new ThreadPoolExecutor(CoreSettings.listenerAsyncThreads, CoreSettings.listenerAsyncThreads, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(CoreSettings.listenerAsyncQueueSize), runnable -> {
+                        Thread thread = new Thread(runnable, "XtraCore-Listener-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, handler);
+            this.executor.allowCoreThreadTimeOut(true);
+            return this.executor;
+        }
+    }
+
+    public long getSubmitted() {
+        return this.submitted.sum();
+    }
+
+    public long getCompleted() {
+        return this.completed.sum();
+    }
+
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    public long getCallerRuns() {
+        return this.callerRuns.sum();
+    }
+
+    public int getQueued() {
+        ThreadPoolExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Waits for the queued handlers to finish and stops the threads.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null) {
+            return;
+        }
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                Internals.globalLogger.warn("Timed out while waiting for the asynchronous listeners to finish!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.listener;
+
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.listener.annotation.Coalesce;
+import io.github.narikiro.core.util.stats.LatencyHistogram;
+import org.slf4j.Logger;
+import org.spongepowered.api.event.Event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Buffers the events of a {@link Coalesce} method during a tick, and passes
+ * them to the method once the tick is over. Two buffers are used in turn, so
+ * that events fired while the method runs go into the next tick.
+ */
+public class Coalescer {
+
+    private Coalesce coalesce;
+    private MethodHandle handler;
+    // Only used for Mode.LATEST
+    private MethodHandle key;
+    private Logger logger;
+    private String source;
+    @Nullable private LatencyHistogram timings;
+
+    private List<Event> buffer;
+    private List<Event> delivery;
+    private Map<Object, Event> latest;
+
+    public Coalescer(Object object, Method method, Coalesce coalesce, Logger logger) throws IllegalAccessException, NoSuchMethodException {
+        this.coalesce = coalesce;
+        this.logger = logger;
+        this.source = method.getDeclaringClass().getName() + "#" + method.getName();
+        method.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.handler = lookup.unreflect(method).bindTo(object).asType(MethodType.methodType(void.class, List.class));
+        this.delivery = new ArrayList<>(coalesce.capacity());
+        if (coalesce.mode() == Coalesce.Mode.LATEST) {
+            Method keyMethod = coalesce.value().getMethod(coalesce.key());
+            this.key = lookup.unreflect(keyMethod).asType(MethodType.methodType(Object.class, Event.class));
+            this.latest = new LinkedHashMap<>(coalesce.capacity() * 2);
+        } else {
+            this.buffer = new ArrayList<>(coalesce.capacity());
+        }
+    }
+
+    public Coalesce getCoalesce() {
+        return this.coalesce;
+    }
+
+    /**
+     * Sets the histogram the time taken by the method is recorded in, if
+     * listener timings are enabled.
+     */
+    public void setTimings(LatencyHistogram timings) {
+        this.timings = timings;
+    }
+
+    public synchronized void add(Event event) throws Exception {
+        if (this.latest != null) {
+            Object key;
+            try {
+                key = (Object) this.key.invokeExact(event);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+            // Move the key to the end, so that the events stay in the order
+            // of their latest occurrence
+            this.latest.remove(key);
+            this.latest.put(key, event);
+        } else {
+            this.buffer.add(event);
+        }
+    }
+
+    /**
+     * Passes the buffered events to the method. Called once per tick.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (this.latest != null) {
+                this.delivery.addAll(this.latest.values());
+                this.latest.clear();
+            } else {
+                List<Event> events = this.buffer;
+                this.buffer = this.delivery;
+                this.delivery = events;
+            }
+        }
+        if (this.delivery.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            this.handler.invokeExact((List) Collections.unmodifiableList(this.delivery));
+        } catch (Throwable t) {
+            CoreImpl.instance.getErrorAggregator().report(this.logger, this.source,
+                    () -> "An exception has occurred while attempting to handle the coalesced " + this.coalesce.value().getSimpleName() + "s in "
+                            + this.source + "!", t);
+        } finally {
+            if (this.timings != null) {
+                this.timings.record(System.nanoTime() - start);
+            }
+            this.delivery.clear();
+        }
+    }
+}
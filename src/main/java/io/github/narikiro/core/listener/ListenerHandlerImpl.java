@@ -25,22 +25,58 @@
 
 package io.github.narikiro.core.listener;
 
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
 import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.Cancellable;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.EventListener;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.filter.IsCancelled;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.util.Tristate;
+
 import io.github.narikiro.api.listener.ListenerHandler;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
+import io.github.narikiro.core.CoreImpl;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.listener.annotation.AsyncListener;
+import io.github.narikiro.core.listener.annotation.Coalesce;
+import io.github.narikiro.core.listener.annotation.ListenerGroup;
+import io.github.narikiro.core.logger.Subsystem;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
+import io.github.narikiro.core.util.stats.LatencyHistogram;
 
 public class ListenerHandlerImpl implements ListenerHandler {
 
     private Set<Object> listenerObjects = new HashSet<>();
     private Set<Method> listenerMethods = new HashSet<>();
+    private List<Coalescer> coalescers = new CopyOnWriteArrayList<>();
+    // Everything needed to register a class again once it has been disabled,
+    // without scanning the plugin another time
+    private Map<Class<?>, ListenerClass> classes = new LinkedHashMap<>();
+    private XtraCorePluginContainerImpl container;
+    private Logger logger;
+    @Nullable private Task flushTask;
 
     public ListenerHandlerImpl(XtraCorePluginContainer container) {
         this.registerListeners((XtraCorePluginContainerImpl) container);
@@ -48,25 +84,22 @@ public class ListenerHandlerImpl implements ListenerHandler {
 
     public void registerListeners(XtraCorePluginContainerImpl container) {
         Internals.globalLogger.info("Registering listeners for " + container.getPluginContainer().getId());
-        for (Map.Entry<Class<?>, Method> listener : container.scanner.getPluginListeners().entries()) {
-            this.listenerMethods.add(listener.getValue());
-            // To prevent duplicate classes getting instantiated, we need to
-            // check if the current class already exists as a listener object.
-            boolean skip = false;
-            for (Object o : this.listenerObjects) {
-                if (o.getClass().equals(listener.getKey())) {
-                    skip = true;
-                    break;
-                }
-            }
-            if (skip) {
-                continue;
-            }
-
+        this.container = container;
+        this.logger = Subsystem.LISTENER.getLogger(container);
+        // The methods are grouped by class, so that each class is only
+        // instantiated and registered once.
+        for (Map.Entry<Class<?>, Collection<Method>> listener : container.scanner.getPluginListeners().asMap().entrySet()) {
+            this.listenerMethods.addAll(listener.getValue());
             try {
                 Object o = Internals.checkIfAlreadyExists(container, listener.getKey());
                 this.listenerObjects.add(o);
-                Sponge.getEventManager().registerListeners(container.getPlugin(), o);
+                ListenerClass listenerClass = new ListenerClass(listener.getKey(), o, new ArrayList<>(listener.getValue()));
+                this.classes.put(listener.getKey(), listenerClass);
+                if (listenerClass.isDisabled()) {
+                    this.logger.debug("Not registering the listeners of {}, as they are disabled.", listener.getKey().getName());
+                } else {
+                    this.register(listenerClass);
+                }
             } catch (InstantiationException | IllegalAccessException e) {
                 container.getLogger().error("An error has occurred while attempting to instantiate the listeners!", e);
             }
@@ -74,6 +107,319 @@ public class ListenerHandlerImpl implements ListenerHandler {
         container.setListenerHandler(this);
     }
 
+    private void register(ListenerClass listenerClass) {
+        // Coalescing and asynchronous methods are always handled by XtraCore,
+        // Sponge ignores them as they are not annotated with @Listener
+        List<Method> methods = new ArrayList<>();
+        for (Method method : listenerClass.methods) {
+            Coalesce coalesce = method.getAnnotation(Coalesce.class);
+            AsyncListener async = method.getAnnotation(AsyncListener.class);
+            if (coalesce != null) {
+                this.registerCoalescer(listenerClass, method, coalesce);
+            } else if (async != null) {
+                this.registerAsync(listenerClass, method, async);
+            } else {
+                methods.add(method);
+            }
+        }
+        if (!methods.isEmpty()) {
+            if (canRegisterDirectly(methods)) {
+                // The methods are already known, so there is no need for
+                // Sponge to scan the class again
+                try {
+                    for (Method method : methods) {
+                        this.registerDirectly(listenerClass, method);
+                    }
+                } catch (IllegalAccessException e) {
+                    this.container.getLogger().error("An error has occurred while attempting to register the listeners!", e);
+                }
+            } else {
+                this.logger.debug("Letting Sponge register the listeners of {}, as they use event filters.", listenerClass.clazz.getName());
+                Sponge.getEventManager().registerListeners(this.container.getPlugin(), listenerClass.instance);
+                listenerClass.registrations.add(listenerClass.instance);
+            }
+        }
+        listenerClass.registered = true;
+        if (!this.coalescers.isEmpty() && this.flushTask == null) {
+            // Pass the buffered events on once per tick
+            this.flushTask = Sponge.getScheduler().createTaskBuilder().execute(task -> {
+                for (Coalescer coalescer : this.coalescers) {
+                    coalescer.flush();
+                }
+            }).intervalTicks(1).submit(this.container.getPlugin());
+        }
+    }
+
+    private void unregister(ListenerClass listenerClass) {
+        // Both the listener objects passed to Sponge and the listeners
+        // registered directly are unregistered by their own instance
+        for (Object registration : listenerClass.registrations) {
+            Sponge.getEventManager().unregisterListeners(registration);
+        }
+        listenerClass.registrations.clear();
+        for (Coalescer coalescer : listenerClass.coalescers) {
+            // Don't lose the events that have already been buffered
+            coalescer.flush();
+            this.coalescers.remove(coalescer);
+        }
+        listenerClass.coalescers.clear();
+        listenerClass.registered = false;
+        if (this.coalescers.isEmpty() && this.flushTask != null) {
+            // Nothing left to flush every tick
+            this.flushTask.cancel();
+            this.flushTask = null;
+        }
+    }
+
+    /**
+     * Enables or disables the listener classes of the specified group, or
+     * with the specified fully qualified or simple class name. Disabled
+     * classes are unregistered, and registered again from the known methods
+     * once enabled.
+     *
+     * @param name The name of the group or class
+     * @param enabled Whether the listeners should be enabled
+     * @return The amount of classes matching the name
+     */
+    public int setEnabled(String name, boolean enabled) {
+        int matches = 0;
+        for (ListenerClass listenerClass : this.classes.values()) {
+            if (!listenerClass.matches(name)) {
+                continue;
+            }
+            matches++;
+            if (enabled && !listenerClass.registered) {
+                this.logger.info("Enabling the listeners of {}.", listenerClass.clazz.getName());
+                this.register(listenerClass);
+            } else if (!enabled && listenerClass.registered) {
+                this.logger.info("Disabling the listeners of {}.", listenerClass.clazz.getName());
+                this.unregister(listenerClass);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Registers or unregisters all listener classes according to
+     * {@code listeners.disabled} in xtracore.conf. Called on every reload.
+     */
+    public void applyDisabled() {
+        for (ListenerClass listenerClass : this.classes.values()) {
+            boolean disabled = listenerClass.isDisabled();
+            if (disabled && listenerClass.registered) {
+                this.logger.info("Disabling the listeners of {}.", listenerClass.clazz.getName());
+                this.unregister(listenerClass);
+            } else if (!disabled && !listenerClass.registered) {
+                this.logger.info("Enabling the listeners of {}.", listenerClass.clazz.getName());
+                this.register(listenerClass);
+            }
+        }
+    }
+
+    /**
+     * Checks if there is a listener class of the specified group, or with the
+     * specified class name.
+     *
+     * @param name The name of the group or class
+     * @return True if there is one, false otherwise
+     */
+    public boolean contains(String name) {
+        for (ListenerClass listenerClass : this.classes.values()) {
+            if (listenerClass.matches(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any listener class of the specified group, or with the
+     * specified class name, is currently registered.
+     *
+     * @param name The name of the group or class
+     * @return True if one of them is registered, false otherwise
+     */
+    public boolean isEnabled(String name) {
+        for (ListenerClass listenerClass : this.classes.values()) {
+            if (listenerClass.matches(name) && listenerClass.registered) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getGroups() {
+        Set<String> groups = new TreeSet<>();
+        for (ListenerClass listenerClass : this.classes.values()) {
+            if (listenerClass.group != null) {
+                groups.add(listenerClass.group);
+            }
+        }
+        return groups;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerDirectly(ListenerClass listenerClass, Method method) throws IllegalAccessException {
+        XtraCorePluginContainerImpl container = this.container;
+        Logger logger = this.logger;
+        Object o = listenerClass.instance;
+        Listener annotation = method.getAnnotation(Listener.class);
+        IsCancelled isCancelled = method.getAnnotation(IsCancelled.class);
+        // Like Sponge, don't pass cancelled events unless asked to
+        Tristate cancelled = isCancelled == null ? Tristate.FALSE : isCancelled.value();
+        Class<Event> eventClass = (Class<Event>) method.getParameterTypes()[0];
+        String source = method.getDeclaringClass().getName() + "#" + method.getName();
+        EventListener<Event> invoker = ListenerInvokerFactory.create(o, method, logger);
+        if (CoreSettings.listenerTimings) {
+            invoker = CoreImpl.instance.getListenerTimings().wrap(container.getPluginContainer().getId(), source, eventClass, invoker);
+        }
+        EventListener<Event> listener = invoker;
+
+        EventListener<Event> registration = event -> {
+            if (cancelled != Tristate.UNDEFINED && event instanceof Cancellable
+                    && ((Cancellable) event).isCancelled() != cancelled.asBoolean()) {
+                return;
+            }
+            try {
+                listener.handle(event);
+            } catch (Throwable t) {
+                CoreImpl.instance.getErrorAggregator().report(logger, source,
+                        () -> "An exception has occurred while attempting to handle " + eventClass.getSimpleName() + " in " + source + "!", t);
+            }
+        };
+        logger.debug("Registering {} for {}.", source, eventClass.getName());
+        Sponge.getEventManager().registerListener(container.getPlugin(), eventClass, annotation.order(), annotation.beforeModifications(),
+                registration);
+        listenerClass.registrations.add(registration);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerCoalescer(ListenerClass listenerClass, Method method, Coalesce coalesce) {
+        Logger logger = this.logger;
+        String source = method.getDeclaringClass().getName() + "#" + method.getName();
+        Coalescer coalescer;
+        try {
+            coalescer = new Coalescer(listenerClass.instance, method, coalesce, logger);
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException e) {
+            logger.error("Could not register the coalescing listener " + source + "! Check its parameter and key method.", e);
+            return;
+        }
+        if (CoreSettings.listenerTimings) {
+            coalescer.setTimings(CoreImpl.instance.getListenerTimings().getHistogram(this.container.getPluginContainer().getId(), source,
+                    coalesce.value()));
+        }
+        this.coalescers.add(coalescer);
+        listenerClass.coalescers.add(coalescer);
+        EventListener<Event> registration = event -> {
+            if (event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                return;
+            }
+            coalescer.add(event);
+        };
+        logger.debug("Registering {} for {}, coalescing by {}.", source, coalesce.value().getName(), coalesce.mode());
+        Sponge.getEventManager().registerListener(this.container.getPlugin(), (Class<Event>) coalesce.value(), coalesce.order(), registration);
+        listenerClass.registrations.add(registration);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerAsync(ListenerClass listenerClass, Method method, AsyncListener async) {
+        Logger logger = this.logger;
+        Object o = listenerClass.instance;
+        String source = method.getDeclaringClass().getName() + "#" + method.getName();
+        MethodHandle handler;
+        MethodHandle snapshot = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            method.setAccessible(true);
+            handler = lookup.unreflect(method).bindTo(o).asType(MethodType.methodType(void.class, Object.class));
+            if (!async.snapshot().isEmpty()) {
+                Method snapshotMethod = findSnapshotMethod(method.getDeclaringClass(), async);
+                snapshotMethod.setAccessible(true);
+                snapshot = lookup.unreflect(snapshotMethod).bindTo(o).asType(MethodType.methodType(Object.class, Event.class));
+            }
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException e) {
+            logger.error("Could not register the asynchronous listener " + source + "! Check its parameter and snapshot method.", e);
+            return;
+        }
+        MethodHandle snapshotHandle = snapshot;
+        AsyncListenerExecutor executor = CoreImpl.instance.getAsyncListenerExecutor();
+        // Only the time taken on the worker thread is recorded
+        LatencyHistogram timings = CoreSettings.listenerTimings
+                ? CoreImpl.instance.getListenerTimings().getHistogram(this.container.getPluginContainer().getId(), source, async.value()) : null;
+        Supplier<String> message = () -> "An exception has occurred while attempting to handle " + async.value().getSimpleName() + " in " + source
+                + "!";
+
+        EventListener<Event> registration = event -> {
+            if (event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                return;
+            }
+            Object value;
+            try {
+                // Taken on the firing thread, while the event may still be
+                // used
+                value = snapshotHandle == null ? event : (Object) snapshotHandle.invokeExact(event);
+            } catch (Throwable t) {
+                CoreImpl.instance.getErrorAggregator().report(logger, source, message, t);
+                return;
+            }
+            executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    handler.invokeExact(value);
+                } catch (Throwable t) {
+                    CoreImpl.instance.getErrorAggregator().report(logger, source, message, t);
+                } finally {
+                    if (timings != null) {
+                        timings.record(System.nanoTime() - start);
+                    }
+                }
+            });
+        };
+        logger.debug("Registering {} for {}, asynchronously.", source, async.value().getName());
+        Sponge.getEventManager().registerListener(this.container.getPlugin(), (Class<Event>) async.value(), async.order(), registration);
+        listenerClass.registrations.add(registration);
+    }
+
+    private static Method findSnapshotMethod(Class<?> clazz, AsyncListener async) throws NoSuchMethodException {
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.getName().equals(async.snapshot()) && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0].isAssignableFrom(async.value())) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(clazz.getName() + "#" + async.snapshot() + "(" + async.value().getName() + ")");
+    }
+
+    /**
+     * Checks if the specified listener methods can be registered without
+     * Sponge. This is not the case for methods using event filters, such as
+     * {@code @First} parameters, or for generic events, which are left to
+     * Sponge. As Sponge registers all methods of a class at once, this
+     * applies to the whole class.
+     */
+    private static boolean canRegisterDirectly(Collection<Method> methods) {
+        for (Method method : methods) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                return false;
+            }
+            // Generic events need their type parameters to be matched
+            if (!(method.getGenericParameterTypes()[0] instanceof Class) || method.getParameterTypes()[0].getTypeParameters().length != 0) {
+                return false;
+            }
+            if (method.getParameterAnnotations()[0].length != 0) {
+                return false;
+            }
+            for (Annotation annotation : method.getAnnotations()) {
+                if (annotation.annotationType().getName().startsWith("org.spongepowered.api.event.filter")
+                        && !annotation.annotationType().equals(IsCancelled.class)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public Collection<Object> getListenerObjects() {
         return this.listenerObjects;
@@ -83,4 +429,37 @@ public class ListenerHandlerImpl implements ListenerHandler {
     public Collection<Method> getListenerMethods() {
         return this.listenerMethods;
     }
+
+    private static class ListenerClass {
+
+        private Class<?> clazz;
+        private Object instance;
+        private List<Method> methods;
+        @Nullable private String group;
+        // The objects the listeners have been registered with
+        private List<Object> registrations = new ArrayList<>();
+        private List<Coalescer> coalescers = new ArrayList<>();
+        private boolean registered;
+
+        private ListenerClass(Class<?> clazz, Object instance, List<Method> methods) {
+            this.clazz = clazz;
+            this.instance = instance;
+            this.methods = methods;
+            ListenerGroup group = clazz.getAnnotation(ListenerGroup.class);
+            this.group = group == null ? null : group.value();
+        }
+
+        private boolean matches(String name) {
+            return name.equals(this.group) || name.equals(this.clazz.getName()) || name.equals(this.clazz.getSimpleName());
+        }
+
+        private boolean isDisabled() {
+            for (String name : CoreSettings.listenerDisabled) {
+                if (this.matches(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
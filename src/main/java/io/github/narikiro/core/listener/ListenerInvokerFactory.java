@@ -0,0 +1,101 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.listener;
+
+import org.slf4j.Logger;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.EventListener;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates the {@link EventListener}s that call listener methods. For public
+ * methods of public classes, an implementation is generated once with
+ * {@link LambdaMetafactory}, which calls the method directly. Other methods
+ * are called through a method handle, as are methods for which no
+ * implementation could be generated.
+ */
+public class ListenerInvokerFactory {
+
+    private static final MethodType HANDLE_TYPE = MethodType.methodType(void.class, Event.class);
+
+    /**
+     * Creates a listener calling the specified method on the specified
+     * object.
+     *
+     * @param object The listener object
+     * @param method The listener method, taking a single event
+     * @param logger The logger to log a fallback to a method handle to
+     * @return The listener
+     * @throws IllegalAccessException If the method cannot be accessed
+     */
+    public static EventListener<Event> create(Object object, Method method, Logger logger) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            try {
+                return generate(lookup, object, method);
+            } catch (LambdaConversionException | IllegalAccessException e) {
+                // For example if the class is not visible from here
+                logger.debug("Could not generate a listener for {}, calling it through a method handle instead.", method, e);
+            }
+        }
+
+        method.setAccessible(true);
+        MethodHandle handle = lookup.unreflect(method).bindTo(object).asType(HANDLE_TYPE);
+        return event -> {
+            try {
+                handle.invokeExact(event);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventListener<Event> generate(MethodHandles.Lookup lookup, Object object, Method method)
+            throws LambdaConversionException, IllegalAccessException {
+        MethodHandle handle = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "handle", MethodType.methodType(EventListener.class, method.getDeclaringClass()),
+                HANDLE_TYPE, handle, MethodType.methodType(void.class, method.getParameterTypes()[0]));
+        try {
+            return (EventListener<Event>) site.getTarget().invoke(object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            // The generated factory only stores the object
+            throw new IllegalStateException(t);
+        }
+    }
+}
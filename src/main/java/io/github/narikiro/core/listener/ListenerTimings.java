@@ -0,0 +1,190 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.listener;
+
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.XtraCore;
+import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.util.stats.LatencyHistogram;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.EventListener;
+import org.spongepowered.api.scheduler.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the listeners registered by XtraCore take, if enabled
+ * with listeners.timings in xtracore.conf. Listeners are only wrapped while
+ * enabled, so there is no cost otherwise.
+ */
+public class ListenerTimings {
+
+    private static final Path REPORT_PATH = Paths.get(Internals.LOG_DIRECTORY.toString(), "listener-timings.txt");
+
+    // By plugin id, then by listener
+    private Map<String, Map<String, ListenerStats>> stats = new ConcurrentHashMap<>();
+    private Task reportTask;
+
+    /**
+     * Wraps the specified listener so that its invocations are timed.
+     *
+     * @param id The id of the plugin
+     * @param source The name of the listener method
+     * @param eventClass The event class the listener listens to
+     * @param listener The listener
+     * @return The timed listener
+     */
+    public EventListener<Event> wrap(String id, String source, Class<?> eventClass, EventListener<Event> listener) {
+        LatencyHistogram histogram = this.getHistogram(id, source, eventClass);
+        return event -> {
+            long start = System.nanoTime();
+            try {
+                listener.handle(event);
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Gets the histogram the invocations of the specified listener are
+     * recorded in. Used directly by listeners which are not invoked by an
+     * event listener, such as coalescing and asynchronous ones.
+     *
+     * @param id The id of the plugin
+     * @param source The name of the listener method
+     * @param eventClass The event class the listener listens to
+     * @return The histogram
+     */
+    public LatencyHistogram getHistogram(String id, String source, Class<?> eventClass) {
+        // Listeners that are registered again keep their earlier timings
+        ListenerStats listenerStats = this.stats.computeIfAbsent(id, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(source, k -> new ListenerStats(source, eventClass.getName()));
+        this.startReportTask();
+        return listenerStats.histogram;
+    }
+
+    /**
+     * Gets the listeners of the specified plugin, the ones taking the most
+     * time in total first.
+     *
+     * @param id The id of the plugin
+     * @param limit The maximum amount of listeners
+     * @return The listener stats
+     */
+    public List<ListenerStats> getSlowest(String id, int limit) {
+        Map<String, ListenerStats> pluginStats = this.stats.get(id);
+        List<ListenerStats> list = new ArrayList<>();
+        if (pluginStats != null) {
+            list.addAll(pluginStats.values());
+            list.sort(Comparator.comparingLong((ListenerStats stats) -> stats.histogram.getTotal()).reversed());
+        }
+        return list.size() > limit ? list.subList(0, limit) : list;
+    }
+
+    public boolean isEnabled() {
+        return CoreSettings.listenerTimings;
+    }
+
+    public Iterable<String> getPluginIds() {
+        return this.stats.keySet();
+    }
+
+    private synchronized void startReportTask() {
+        if (this.reportTask != null || CoreSettings.listenerTimingsReportInterval <= 0) {
+            return;
+        }
+        this.reportTask = Sponge.getScheduler().createTaskBuilder().execute(task -> this.writeReport())
+                .interval(CoreSettings.listenerTimingsReportInterval, TimeUnit.SECONDS).async()
+                .submit(CoreImpl.instance.getPluginHandler().getContainerUnchecked(XtraCore.class).getPlugin());
+    }
+
+    private void writeReport() {
+        try (BufferedWriter writer = Files.newBufferedWriter(REPORT_PATH, StandardCharsets.UTF_8)) {
+            writer.write("Listener timings at " + LocalDateTime.now() + ", slowest first");
+            writer.newLine();
+            for (String id : this.stats.keySet()) {
+                writer.newLine();
+                writer.write(id + ":");
+                writer.newLine();
+                for (ListenerStats listenerStats : this.getSlowest(id, Integer.MAX_VALUE)) {
+                    writer.write("  " + listenerStats);
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            Internals.globalLogger.error("An exception has occurred while attempting to write the listener timings!", e);
+        }
+    }
+
+    /**
+     * The invocations of a single listener method.
+     */
+    public static class ListenerStats {
+
+        private String source;
+        private String eventClass;
+        private LatencyHistogram histogram = new LatencyHistogram();
+
+        private ListenerStats(String source, String eventClass) {
+            this.source = source;
+            this.eventClass = eventClass;
+        }
+
+        public String getSource() {
+            return this.source;
+        }
+
+        public String getEventClass() {
+            return this.eventClass;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return this.histogram;
+        }
+
+        @Override
+        public String toString() {
+            return this.source + " (" + this.eventClass + "): " + this.histogram.getCount() + " call(s), "
+                    + TimeUnit.NANOSECONDS.toMillis(this.histogram.getTotal()) + "ms total, " + this.histogram.getMean() + "ns mean, <"
+                    + this.histogram.getPercentile(0.99) + "ns p99";
+        }
+    }
+}
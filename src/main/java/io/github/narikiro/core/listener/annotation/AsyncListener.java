@@ -0,0 +1,80 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.listener.annotation;
+
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.Order;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method handling events on one of XtraCore's listener threads,
+ * instead of on the thread firing the event. This is meant for listeners only
+ * doing I/O, such as logging or auditing.
+ *
+ * <p>As events may not be used off the main thread, a snapshot of the event
+ * is taken first, by the method of the same class named by
+ * {@link #snapshot()}. It takes the event and returns an immutable object,
+ * which is passed to the annotated method. For example:</p>
+ * <pre>
+ * {@literal @}AsyncListener(value = MessageChannelEvent.Chat.class, snapshot = "snapshotChat")
+ * public void logChat(ChatLine line) {
+ *     ...
+ * }
+ *
+ * public ChatLine snapshotChat(MessageChannelEvent.Chat event) {
+ *     return new ChatLine(...);
+ * }
+ * </pre>
+ *
+ * <p>If the listener threads cannot keep up, either the snapshots are dropped
+ * or the handler runs on the firing thread, depending on
+ * listeners.async-full-policy in xtracore.conf.</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AsyncListener {
+
+    /**
+     * The event class to listen to.
+     */
+    Class<? extends Event> value();
+
+    /**
+     * The name of the method taking the snapshot of an event. If empty, the
+     * event itself is passed, which is only safe for immutable events.
+     */
+    String snapshot() default "";
+
+    /**
+     * The order in which the events are received. As the handler only sees
+     * the event once it is done, this defaults to {@link Order#POST}.
+     */
+    Order order() default Order.POST;
+}
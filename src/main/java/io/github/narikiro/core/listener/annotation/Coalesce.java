@@ -0,0 +1,86 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.listener.annotation;
+
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.Order;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method receiving the events of a tick at once, instead of being a
+ * listener called for every single event. The method takes a single
+ * {@link java.util.List} of events, and is called once per tick if there
+ * were any. The list is only valid during the call.
+ *
+ * <p>For example:</p>
+ * <pre>
+ * {@literal @}Coalesce(value = MoveEntityEvent.class, mode = Mode.LATEST, key = "getTargetEntity")
+ * public void onMove(List&lt;MoveEntityEvent&gt; events) {
+ *     ...
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+
+    /**
+     * The event class to listen to.
+     */
+    Class<? extends Event> value();
+
+    /**
+     * Whether all events of the tick are passed, or only the latest event of
+     * each key.
+     */
+    Mode mode() default Mode.BATCH;
+
+    /**
+     * The name of a method of the event without parameters, which returns
+     * the key of an event. Required for {@link Mode#LATEST}.
+     */
+    String key() default "";
+
+    /**
+     * The amount of events the buffers are created for. They grow if a tick
+     * has more events.
+     */
+    int capacity() default 256;
+
+    /**
+     * The order in which the events are received.
+     */
+    Order order() default Order.DEFAULT;
+
+    enum Mode {
+        BATCH,
+        LATEST
+    }
+}
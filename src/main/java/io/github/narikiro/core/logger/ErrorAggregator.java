@@ -0,0 +1,200 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.XtraCore;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import org.slf4j.Logger;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.scheduler.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a repeatedly thrown exception from flooding the log. Exceptions are
+ * identified by where they were thrown from, such as a command class, and by
+ * their stack trace. The first occurrence is logged in full, and any repeats
+ * are only counted and summarized once per window.
+ */
+public class ErrorAggregator {
+
+    // Once this many different errors are known, new ones are grouped by
+    // their exception class only, so that the map cannot grow without bounds
+    private static final int MAX_FINGERPRINTS = 1024;
+
+    private Map<String, ErrorStats> stats = new ConcurrentHashMap<>();
+    private Task summaryTask;
+
+    /**
+     * Reports an exception. It is logged in full if it has not occurred
+     * before, otherwise it is included in the next summary.
+     *
+     * @param logger The logger to log to
+     * @param source Where the exception was thrown from, such as the name of
+     *        a command class
+     * @param message The message to log, only created if the exception has
+     *        not occurred before
+     * @param throwable The exception
+     */
+    public void report(Logger logger, String source, Supplier<String> message, Throwable throwable) {
+        checkNotNull(logger, "Logger cannot be null!");
+        checkNotNull(source, "Source cannot be null!");
+        checkNotNull(message, "Message cannot be null!");
+        checkNotNull(throwable, "Throwable cannot be null!");
+        String fingerprint = source + ":" + throwable.getClass().getName();
+        String detailedFingerprint = fingerprint + ":" + hash(throwable);
+        if (this.stats.size() < MAX_FINGERPRINTS || this.stats.containsKey(detailedFingerprint)) {
+            fingerprint = detailedFingerprint;
+        }
+
+        ErrorStats existing = this.stats.get(fingerprint);
+        if (existing == null) {
+            ErrorStats created = new ErrorStats(logger, source, throwable.getClass().getName(), message.get());
+            existing = this.stats.putIfAbsent(fingerprint, created);
+            if (existing == null) {
+                created.total.incrementAndGet();
+                logger.error(created.message, throwable);
+                this.startSummaryTask();
+                return;
+            }
+        }
+        existing.total.incrementAndGet();
+        existing.repeated.incrementAndGet();
+        existing.lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the stats of all errors reported so far, the most frequent first.
+     *
+     * @return The error stats
+     */
+    public List<ErrorStats> getStats() {
+        List<ErrorStats> list = new ArrayList<>(this.stats.values());
+        list.sort((a, b) -> Long.compare(b.getTotal(), a.getTotal()));
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Forgets all errors reported so far.
+     */
+    public void clear() {
+        this.stats.clear();
+    }
+
+    private void startSummaryTask() {
+        if (this.summaryTask != null) {
+            return;
+        }
+        synchronized (this) {
+            if (this.summaryTask == null) {
+                this.summaryTask = Sponge.getScheduler().createTaskBuilder().execute(task -> this.summarize())
+                        .interval(CoreSettings.loggingErrorWindow, TimeUnit.MILLISECONDS).async()
+                        .submit(CoreImpl.instance.getPluginHandler().getContainerUnchecked(XtraCore.class).getPlugin());
+            }
+        }
+    }
+
+    private void summarize() {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(CoreSettings.loggingErrorWindow);
+        for (ErrorStats error : this.stats.values()) {
+            long repeated = error.repeated.getAndSet(0);
+            if (repeated > 0) {
+                error.logger.error(error.message + " (" + error.exception + " repeated " + repeated + " more time(s) in the last "
+                        + seconds + " seconds, " + error.total.get() + " in total)");
+            }
+        }
+    }
+
+    private static int hash(Throwable throwable) {
+        int hash = 1;
+        // Include the causes, but guard against circular ones
+        for (int depth = 0; throwable != null && depth < 10; depth++) {
+            hash = 31 * hash + throwable.getClass().getName().hashCode();
+            for (StackTraceElement element : throwable.getStackTrace()) {
+                hash = 31 * hash + element.hashCode();
+            }
+            throwable = throwable.getCause();
+        }
+        return hash;
+    }
+
+    /**
+     * How often an error has occurred.
+     */
+    public static class ErrorStats {
+
+        private Logger logger;
+        private String source;
+        private String exception;
+        private String message;
+        private long firstSeen = System.currentTimeMillis();
+        private volatile long lastSeen = this.firstSeen;
+        private AtomicLong total = new AtomicLong();
+        // The repeats since the last summary
+        private AtomicLong repeated = new AtomicLong();
+
+        private ErrorStats(Logger logger, String source, String exception, String message) {
+            this.logger = logger;
+            this.source = source;
+            this.exception = exception;
+            this.message = message;
+        }
+
+        public String getSource() {
+            return this.source;
+        }
+
+        public String getException() {
+            return this.exception;
+        }
+
+        public String getMessage() {
+            return this.message;
+        }
+
+        public long getFirstSeen() {
+            return this.firstSeen;
+        }
+
+        public long getLastSeen() {
+            return this.lastSeen;
+        }
+
+        public long getTotal() {
+            return this.total.get();
+        }
+    }
+}
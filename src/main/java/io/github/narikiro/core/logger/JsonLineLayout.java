@@ -0,0 +1,162 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.logger;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.layout.AbstractStringLayout;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes each log event as a single line of JSON, with the plugin and
+ * subsystem taken from the logger name, and the command, phase and duration
+ * taken from the MDC. The line is built in a reused buffer and encoded
+ * directly, so no strings are created for events without an exception.
+ */
+public class JsonLineLayout extends AbstractStringLayout {
+
+    public static final String COMMAND = "command";
+    public static final String PHASE = "phase";
+    public static final String DURATION = "duration";
+
+    private static final ThreadLocal<StringBuilder> MESSAGE = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    public JsonLineLayout() {
+        super(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toSerializable(LogEvent event) {
+        return this.format(event).toString();
+    }
+
+    @Override
+    public void encode(LogEvent event, ByteBufferDestination destination) {
+        StringBuilder text = this.format(event);
+        getStringBuilderEncoder().encode(text, destination);
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-ndjson; charset=" + this.getCharset();
+    }
+
+    private StringBuilder format(LogEvent event) {
+        StringBuilder text = getStringBuilder();
+        text.append("{\"time\":").append(event.getTimeMillis());
+        text.append(",\"level\":\"").append(event.getLevel().name()).append('"');
+        appendField(text, "thread", event.getThreadName());
+
+        // Logger names are xtracore.<plugin id>[.<subsystem>]
+        String name = event.getLoggerName();
+        if (name.startsWith(PluginRoutingAppender.LOGGER_PREFIX)) {
+            int start = PluginRoutingAppender.LOGGER_PREFIX.length();
+            int end = name.indexOf('.', start);
+            text.append(",\"plugin\":\"");
+            escape(text, name, start, end == -1 ? name.length() : end);
+            text.append('"');
+            if (end != -1) {
+                text.append(",\"subsystem\":\"");
+                escape(text, name, end + 1, name.length());
+                text.append('"');
+            }
+        } else {
+            appendField(text, "logger", name);
+        }
+
+        ReadOnlyStringMap context = event.getContextData();
+        appendField(text, COMMAND, context.getValue(COMMAND));
+        appendField(text, PHASE, context.getValue(PHASE));
+        Object duration = context.getValue(DURATION);
+        if (duration != null) {
+            // Durations are numbers, in microseconds
+            text.append(",\"duration_us\":").append(duration);
+        }
+
+        StringBuilder message = MESSAGE.get();
+        message.setLength(0);
+        if (event.getMessage() instanceof StringBuilderFormattable) {
+            ((StringBuilderFormattable) event.getMessage()).formatTo(message);
+        } else {
+            message.append(event.getMessage().getFormattedMessage());
+        }
+        text.append(",\"message\":\"");
+        escape(text, message, 0, message.length());
+        text.append('"');
+        trimToMaxSize(message);
+
+        if (event.getThrown() != null) {
+            StringWriter writer = new StringWriter();
+            event.getThrown().printStackTrace(new PrintWriter(writer));
+            appendField(text, "exception", writer.toString());
+        }
+        return text.append("}\n");
+    }
+
+    private static void appendField(StringBuilder text, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        String string = value.toString();
+        text.append(",\"").append(key).append("\":\"");
+        escape(text, string, 0, string.length());
+        text.append('"');
+    }
+
+    private static void escape(StringBuilder text, CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    text.append("\\\"");
+                    break;
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        text.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        text.append(c);
+                    }
+            }
+        }
+    }
+}
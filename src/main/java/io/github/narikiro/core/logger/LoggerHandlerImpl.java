@@ -30,34 +30,79 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import io.github.narikiro.api.logger.LoggerHandler;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.XtraCore;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.internal.config.CoreSettings;
+import io.github.narikiro.core.internal.config.LogRetention;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.Filter.Result;
+import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
 import org.apache.logging.log4j.core.appender.ConsoleAppender;
 import org.apache.logging.log4j.core.appender.ConsoleAppender.Target;
-import org.apache.logging.log4j.core.appender.FileAppender;
+import org.apache.logging.log4j.core.appender.AbstractOutputStreamAppender;
+import org.apache.logging.log4j.core.appender.RollingFileAppender;
+import org.apache.logging.log4j.core.appender.rolling.CompositeTriggeringPolicy;
+import org.apache.logging.log4j.core.appender.rolling.DefaultRolloverStrategy;
+import org.apache.logging.log4j.core.appender.rolling.OnStartupTriggeringPolicy;
+import org.apache.logging.log4j.core.appender.rolling.SizeBasedTriggeringPolicy;
+import org.apache.logging.log4j.core.appender.rolling.TimeBasedTriggeringPolicy;
+import org.apache.logging.log4j.core.appender.rolling.TriggeringPolicy;
+import org.apache.logging.log4j.core.appender.rolling.action.Action;
+import org.apache.logging.log4j.core.appender.rolling.action.DeleteAction;
+import org.apache.logging.log4j.core.appender.rolling.action.Duration;
+import org.apache.logging.log4j.core.appender.rolling.action.IfAccumulatedFileCount;
+import org.apache.logging.log4j.core.appender.rolling.action.IfAny;
+import org.apache.logging.log4j.core.appender.rolling.action.IfFileName;
+import org.apache.logging.log4j.core.appender.rolling.action.IfLastModified;
+import org.apache.logging.log4j.core.appender.rolling.action.PathCondition;
+import org.apache.logging.log4j.core.config.AbstractConfiguration;
 import org.apache.logging.log4j.core.config.AppenderRef;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.LoggerConfig;
-import org.apache.logging.log4j.core.config.Property;
 import org.apache.logging.log4j.core.filter.ThresholdFilter;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.scheduler.Task;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 
 public class LoggerHandlerImpl implements LoggerHandler {
 
+    private static final String ROUTER_NAME = "XtraCore-Router";
+    private static final String ASYNC_NAME = "XtraCore-Async";
+    private static final String DROPPED_NAME = "XtraCore-DroppedEventCounter";
+    private static final String CONSOLE_NAME = "XtraCore-Console";
+    private static final String COMBINED_ID = "combined";
+
+    // The log files of all loggers, by plugin id
+    private Map<String, Path> logPaths = new ConcurrentHashMap<>();
+    // All loggers share these appenders, no matter how many plugins there are
+    private PluginRoutingAppender router;
+    @Nullable private AsyncAppender async;
+    @Nullable private DroppedEventCounter dropped;
+    private ConsoleAppender console;
+    private Task flushTask;
+
     public LoggerHandlerImpl() {
         try {
             if (Files.notExists(Internals.LOG_DIRECTORY)) {
@@ -81,66 +126,302 @@ public class LoggerHandlerImpl implements LoggerHandler {
 
     public Logger create(XtraCorePluginContainer container) {
         XtraCorePluginContainerImpl impl = (XtraCorePluginContainerImpl) container;
-        String name = "XtraCore-" + container.getPluginContainer().getName();
-        Path logPath = Paths.get(Internals.LOG_DIRECTORY.toString(), container.getPluginContainer().getId() + ".log");
-        this.checkExists(logPath);
-        this.handleAppenders(logPath, name, container.getPluginContainer().getId());
-
-        Logger logger = LoggerFactory.getLogger("XtraCore-" + name);
+        Logger logger = this.register(container.getPluginContainer().getId());
         impl.setLogger(logger);
         return logger;
     }
 
     public void createGlobal() {
-        Path logPath = Paths.get(Internals.LOG_DIRECTORY.toString(), "xtracore.log");
-        this.checkExists(logPath);
-        this.handleAppenders(logPath, "XtraCoreLogger", "xtracore");
-        Internals.globalLogger = LoggerFactory.getLogger("XtraCore-XtraCoreLogger");
+        Internals.globalLogger = this.register("xtracore");
     }
 
-    private void checkExists(Path logPath) {
-        try {
-            if (Files.notExists(logPath)) {
-                Files.createFile(logPath);
-            } else {
-                // Wipe the old log file.
-                new PrintWriter(logPath.toFile()).close();
+    /**
+     * The global logger is created before xtracore.conf is read, so the shared
+     * appenders are recreated once the settings are known.
+     */
+    public void applyGlobalSettings() {
+        this.buildBackend();
+    }
+
+    /**
+     * Gets the metrics of the asynchronous logging queue, which is shared by
+     * all loggers.
+     *
+     * @return The metrics, or {@link Optional#empty()} if logging is not
+     *         asynchronous
+     */
+    public Optional<AsyncLogMetrics> getAsyncMetrics() {
+        if (this.async == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AsyncLogMetrics(this.async.getQueueCapacity() - this.async.getQueueRemainingCapacity(),
+                this.async.getQueueCapacity(), this.dropped.getDropped()));
+    }
+
+    private Logger register(String id) {
+        Path logPath = Paths.get(Internals.LOG_DIRECTORY.toString(), id + ".log");
+        String name = PluginRoutingAppender.LOGGER_PREFIX + id;
+        boolean added = this.logPaths.putIfAbsent(id, logPath) == null;
+
+        if (this.router == null) {
+            this.buildBackend();
+        } else if (added) {
+            LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
+            Configuration config = ctx.getConfiguration();
+            if (this.router.getCombined() == null) {
+                this.router.addRoute(id, this.createFileAppender(config, id, logPath, false));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            this.attach(config, id);
+            ctx.updateLoggers();
         }
+        return LoggerFactory.getLogger(name);
     }
 
-    private void handleAppenders(Path logPath, String name, String consoleName) {
-        org.apache.logging.log4j.core.Logger coreLogger = (org.apache.logging.log4j.core.Logger) LogManager.getLogger("XtraCore-" + name);
+    /**
+     * Creates the appenders shared by all loggers, replacing the previous
+     * ones, and attaches them to every logger that has been created so far.
+     */
+    private void buildBackend() {
+        LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
+        Configuration config = ctx.getConfiguration();
+        this.removeAppenders(config);
+
+        RollingFileAppender combined = null;
+        if (!CoreSettings.loggingPerPluginFiles) {
+            combined = this.createFileAppender(config, COMBINED_ID, Paths.get(Internals.LOG_DIRECTORY.toString(), COMBINED_ID + ".log"), true);
+        }
+        this.router = new PluginRoutingAppender(ROUTER_NAME, combined);
+        if (combined == null) {
+            for (Map.Entry<String, Path> entry : this.logPaths.entrySet()) {
+                this.router.addRoute(entry.getKey(), this.createFileAppender(config, entry.getKey(), entry.getValue(), false));
+            }
+        }
+        this.router.start();
+        config.addAppender(this.router);
+
+        if (CoreSettings.loggingAsync) {
+            this.dropped = new DroppedEventCounter(DROPPED_NAME);
+            this.dropped.start();
+            config.addAppender(this.dropped);
+
+            // The events of all loggers are passed to the router by one
+            // background thread, through a queue of a fixed size. If the queue
+            // is full, either wait for space or count the event as dropped.
+            this.async = AsyncAppender.newBuilder().setName(ASYNC_NAME)
+                    .setAppenderRefs(new AppenderRef[] {AppenderRef.createAppenderRef(ROUTER_NAME, null, null)})
+                    .setErrorRef(DROPPED_NAME).setBlocking(!CoreSettings.loggingDropWhenFull)
+                    .setBufferSize(CoreSettings.loggingQueueSize).setIncludeLocation(false).setIgnoreExceptions(false)
+                    .setConfiguration(config).build();
+            this.async.start();
+            config.addAppender(this.async);
+            this.startFlushTask();
+        }
+
+        this.console = ConsoleAppender.newBuilder()
+                .withLayout(PatternLayout.newBuilder().withPattern("[%d{HH:mm:ss}] [%t/%level] [%c{-1}]: %msg%n")
+                        .withConfiguration(config).withCharset(StandardCharsets.UTF_8).build())
+                .withFilter(ThresholdFilter.createFilter(Level.WARN, Result.ACCEPT, Result.DENY))
+                .setTarget(Target.SYSTEM_OUT).withName(CONSOLE_NAME).setFollow(false).withIgnoreExceptions(false).build();
+        this.console.start();
+        config.addAppender(this.console);
+
+        for (String id : this.logPaths.keySet()) {
+            this.attach(config, id);
+        }
+        ctx.updateLoggers();
+    }
+
+    private void attach(Configuration config, String id) {
+        org.apache.logging.log4j.core.Logger coreLogger =
+                (org.apache.logging.log4j.core.Logger) LogManager.getLogger(PluginRoutingAppender.LOGGER_PREFIX + id);
         coreLogger.setAdditive(false);
+        Appender entry = this.async != null ? this.async : this.router;
+        config.addLoggerAppender(coreLogger, entry);
+        config.addLoggerAppender(coreLogger, this.console);
+        this.applyLevels(config, id);
+    }
 
+    /**
+     * Sets the levels of all loggers to the ones in xtracore.conf, undoing any
+     * changes made at runtime.
+     */
+    public void applyLevels() {
         LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
         Configuration config = ctx.getConfiguration();
+        for (String id : this.logPaths.keySet()) {
+            this.applyLevels(config, id);
+        }
+        ctx.updateLoggers();
+    }
+
+    private void applyLevels(Configuration config, String id) {
+        this.setLevel(config, PluginRoutingAppender.LOGGER_PREFIX + id,
+                Level.toLevel(CoreSettings.loggingLevels.getOrDefault(id, CoreSettings.loggingDefaultLevel), Level.INFO));
+        for (Subsystem subsystem : Subsystem.values()) {
+            String level = CoreSettings.loggingLevels.get(id + "." + subsystem.getId());
+            String name = PluginRoutingAppender.LOGGER_PREFIX + id + "." + subsystem.getId();
+            if (level != null) {
+                this.setLevel(config, name, Level.toLevel(level, Level.INFO));
+            } else if (config.getLoggers().containsKey(name)) {
+                // Inherit the level of the plugin again
+                config.removeLogger(name);
+            }
+        }
+    }
+
+    /**
+     * Sets the level of the logger of a plugin, or of one of its subsystems,
+     * until the next reload.
+     *
+     * @param id The id of the plugin
+     * @param subsystem The subsystem, or null for the whole plugin
+     * @param level The level
+     * @return False if the plugin does not have a logger
+     */
+    public boolean setLevel(String id, @Nullable Subsystem subsystem, Level level) {
+        checkNotNull(id, "Plugin id cannot be null!");
+        checkNotNull(level, "Level cannot be null!");
+        if (!this.logPaths.containsKey(id)) {
+            return false;
+        }
+        LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
+        String name = PluginRoutingAppender.LOGGER_PREFIX + id + (subsystem == null ? "" : "." + subsystem.getId());
+        this.setLevel(ctx.getConfiguration(), name, level);
+        ctx.updateLoggers();
+        return true;
+    }
+
+    /**
+     * Gets the level the logger of a plugin, or of one of its subsystems,
+     * currently logs at.
+     *
+     * @param id The id of the plugin
+     * @param subsystem The subsystem, or null for the whole plugin
+     * @return The level
+     */
+    public Level getLevel(String id, @Nullable Subsystem subsystem) {
+        checkNotNull(id, "Plugin id cannot be null!");
+        String name = PluginRoutingAppender.LOGGER_PREFIX + id + (subsystem == null ? "" : "." + subsystem.getId());
+        LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
+        return ctx.getConfiguration().getLoggerConfig(name).getLevel();
+    }
+
+    public Set<String> getPluginIds() {
+        return this.logPaths.keySet();
+    }
+
+    private void setLevel(Configuration config, String name, Level level) {
+        LoggerConfig loggerConfig = config.getLoggers().get(name);
+        if (loggerConfig == null) {
+            // Subsystem loggers pass their events on to the plugin's logger,
+            // which has the appenders
+            config.addLogger(name, new LoggerConfig(name, level, true));
+        } else {
+            loggerConfig.setLevel(level);
+        }
+    }
+
+    private RollingFileAppender createFileAppender(Configuration config, String id, Path logPath, boolean combined) {
+        LogRetention retention = CoreSettings.getRetention(id);
+        // The file of the previous run is archived on startup instead of being
+        // wiped. Archives are named <id>-<date>-<index>.log, and compressed by
+        // a background thread, so that the logging thread only renames the
+        // file.
+        String datePattern = retention.interval.equalsIgnoreCase("hourly") ? "yyyy-MM-dd-HH" : "yyyy-MM-dd";
+        String filePattern = Paths.get(Internals.LOG_DIRECTORY.toString(), id + "-%d{" + datePattern + "}-%i.log").toString()
+                + (retention.compress ? ".gz" : "");
+
+        List<TriggeringPolicy> policies = new ArrayList<>();
+        policies.add(OnStartupTriggeringPolicy.createPolicy(1));
+        policies.add(SizeBasedTriggeringPolicy.createPolicy(retention.maxSize));
+        if (!retention.interval.equalsIgnoreCase("never")) {
+            policies.add(TimeBasedTriggeringPolicy.newBuilder().withInterval(1).withModulate(true).build());
+        }
 
-        FileAppender appender = FileAppender.newBuilder().withFileName(logPath.toString()).withAppend(true).withLocking(false)
-                .withName("XtraCore-FileAppender-" + name).withImmediateFlush(true).withIgnoreExceptions(false)
-                .withLayout(PatternLayout.newBuilder().withPattern("\"[%d{HH:mm:ss.SSS}] [%t] [%p]: %m%n\"").withConfiguration(config)
-                        .withCharset(StandardCharsets.UTF_8).withConfiguration(config).build())
-                .setConfiguration(config).build();
+        // Delete archives once there are too many of them, or once they are
+        // too old. The date in the glob keeps plugins whose ids start with
+        // this one from being matched.
+        PathCondition[] conditions = new PathCondition[] {IfFileName.createNameCondition(id + "-????-??-??*.log*", null,
+                IfAny.createOrCondition(IfAccumulatedFileCount.createFileCountCondition(retention.maxFiles),
+                        IfLastModified.createAgeCondition(Duration.parse(retention.maxAge))))};
+        DeleteAction delete = DeleteAction.createDeleteAction(Internals.LOG_DIRECTORY.toString(), false, 1, false, null, conditions, null, config);
+        DefaultRolloverStrategy strategy = DefaultRolloverStrategy.newBuilder().withMax(String.valueOf(retention.maxFiles))
+                .withCustomActions(new Action[] {delete}).withConfig(config).build();
 
+        // The combined file tags each line with the plugin it belongs to.
+        String pattern = combined ? "[%d{HH:mm:ss.SSS}] [%t] [%p] [%c{-1}]: %m%n" : "\"[%d{HH:mm:ss.SSS}] [%t] [%p]: %m%n\"";
+        Layout<String> layout = CoreSettings.loggingJson ? new JsonLineLayout()
+                : PatternLayout.newBuilder().withPattern(pattern).withConfiguration(config).withCharset(StandardCharsets.UTF_8).build();
+        // When logging asynchronously, the file is flushed by the background
+        // thread once it runs out of events, once the buffer is full, or by
+        // the flush task below.
+        RollingFileAppender appender = RollingFileAppender.newBuilder().withFileName(logPath.toString()).withFilePattern(filePattern)
+                .withPolicy(CompositeTriggeringPolicy.createPolicy(policies.toArray(new TriggeringPolicy[0]))).withStrategy(strategy)
+                .withAppend(true).withLocking(false).withName("XtraCore-File-" + id).withImmediateFlush(!CoreSettings.loggingAsync)
+                .withIgnoreExceptions(false).withBufferedIo(true).withBufferSize(CoreSettings.loggingBufferSize)
+                .withLayout(layout).setConfiguration(config).build();
         appender.start();
-        config.addLoggerAppender(coreLogger, appender);
+        return appender;
+    }
 
-        ConsoleAppender appender2 = ConsoleAppender.newBuilder()
-                .withLayout(PatternLayout.newBuilder().withPattern("[%d{HH:mm:ss}] [%t/%level] [" + consoleName + "]: %msg%n")
-                        .withConfiguration(config).withCharset(StandardCharsets.UTF_8).build())
-                .withFilter(ThresholdFilter.createFilter(Level.WARN, Result.ACCEPT, Result.DENY))
-                .setTarget(Target.SYSTEM_OUT).withName("XtraCore-ConsoleAppender-" + name).setFollow(false).withIgnoreExceptions(false).build();
+    private void removeAppenders(Configuration config) {
+        // Also removes them from the loggers they are attached to
+        AbstractConfiguration abstractConfig = (AbstractConfiguration) config;
+        abstractConfig.removeAppender(ASYNC_NAME);
+        abstractConfig.removeAppender(DROPPED_NAME);
+        abstractConfig.removeAppender(ROUTER_NAME);
+        abstractConfig.removeAppender(CONSOLE_NAME);
+        this.async = null;
+        this.dropped = null;
+        if (this.flushTask != null) {
+            this.flushTask.cancel();
+            this.flushTask = null;
+        }
+    }
 
-        appender2.start();
-        config.addLoggerAppender(coreLogger, appender2);
+    private void startFlushTask() {
+        if (this.flushTask != null) {
+            return;
+        }
+        // Flush the buffered files regularly, so that a steady stream of
+        // events does not keep them from being written for long.
+        this.flushTask = Sponge.getScheduler().createTaskBuilder().execute(task -> {
+            PluginRoutingAppender router = this.router;
+            if (router.getCombined() != null) {
+                router.getCombined().getManager().flush();
+            }
+            for (AbstractOutputStreamAppender<?> route : router.getRoutes()) {
+                route.getManager().flush();
+            }
+        }).interval(CoreSettings.loggingFlushInterval, TimeUnit.MILLISECONDS).async()
+                .submit(CoreImpl.instance.getPluginHandler().getContainerUnchecked(XtraCore.class).getPlugin());
+    }
 
-        AppenderRef[] refs = new AppenderRef[] {AppenderRef.createAppenderRef("XtraCore-FileAppender-" + name, Level.DEBUG, null),
-                AppenderRef.createAppenderRef("XtraCore-ConsoleAppender-" + name, Level.ERROR, null)};
+    /**
+     * The queue fill and the dropped events of the asynchronous logging queue.
+     */
+    public static class AsyncLogMetrics {
 
-        LoggerConfig loggerConfig = LoggerConfig.createLogger(false, Level.DEBUG, "name", "true", refs, new Property[] {}, config,
-                ThresholdFilter.createFilter(Level.DEBUG, Result.ACCEPT, Result.DENY));
-        loggerConfig.addAppender(appender, Level.DEBUG, null);
+        private int queued;
+        private int capacity;
+        private long dropped;
+
+        private AsyncLogMetrics(int queued, int capacity, long dropped) {
+            this.queued = queued;
+            this.capacity = capacity;
+            this.dropped = dropped;
+        }
+
+        public int getQueued() {
+            return this.queued;
+        }
+
+        public int getCapacity() {
+            return this.capacity;
+        }
+
+        public long getDropped() {
+            return this.dropped;
+        }
     }
 }
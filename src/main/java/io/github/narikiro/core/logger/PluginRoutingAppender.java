@@ -0,0 +1,105 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.logger;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.appender.AbstractOutputStreamAppender;
+
+/**
+ * Passes the events of all XtraCore loggers to the log file of the plugin they
+ * belong to, or to a single combined log file. This way, all plugins share the
+ * same appender instead of each having their own.
+ */
+public class PluginRoutingAppender extends AbstractAppender {
+
+    public static final String LOGGER_PREFIX = "xtracore.";
+
+    private Map<String, AbstractOutputStreamAppender<?>> routes = new ConcurrentHashMap<>();
+    // The plugin ids by logger name, so that names are only parsed once
+    private Map<String, String> ids = new ConcurrentHashMap<>();
+    @Nullable private AbstractOutputStreamAppender<?> combined;
+
+    public PluginRoutingAppender(String name, @Nullable AbstractOutputStreamAppender<?> combined) {
+        super(name, null, null, false);
+        this.combined = combined;
+    }
+
+    public void addRoute(String id, AbstractOutputStreamAppender<?> appender) {
+        this.routes.put(id, appender);
+    }
+
+    public Collection<AbstractOutputStreamAppender<?>> getRoutes() {
+        return this.routes.values();
+    }
+
+    @Nullable
+    public AbstractOutputStreamAppender<?> getCombined() {
+        return this.combined;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        if (this.combined != null) {
+            this.combined.append(event);
+            return;
+        }
+        AbstractOutputStreamAppender<?> route = this.routes.get(this.getId(event.getLoggerName()));
+        if (route != null) {
+            route.append(event);
+        }
+    }
+
+    private String getId(String loggerName) {
+        String id = this.ids.get(loggerName);
+        if (id == null) {
+            // Logger names are xtracore.<plugin id>, optionally followed by
+            // more elements
+            int end = loggerName.indexOf('.', LOGGER_PREFIX.length());
+            id = loggerName.substring(LOGGER_PREFIX.length(), end == -1 ? loggerName.length() : end);
+            this.ids.put(loggerName, id);
+        }
+        return id;
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        for (AbstractOutputStreamAppender<?> route : this.routes.values()) {
+            route.stop(timeout, timeUnit);
+        }
+        if (this.combined != null) {
+            this.combined.stop(timeout, timeUnit);
+        }
+        return super.stop(timeout, timeUnit);
+    }
+}
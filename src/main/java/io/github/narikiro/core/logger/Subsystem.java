@@ -0,0 +1,66 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.logger;
+
+import io.github.narikiro.api.plugin.XtraCorePluginContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The parts of XtraCore which log on behalf of a plugin. Each has its own
+ * child logger of the plugin's logger, named xtracore.&lt;plugin id&gt;.&lt;subsystem&gt;,
+ * which logs to the same file.
+ */
+public enum Subsystem {
+
+    COMMAND("command"),
+    CONFIG("config"),
+    DATA("data"),
+    HELP("help"),
+    LISTENER("listener"),
+    SCANNER("scanner");
+
+    private String id;
+
+    Subsystem(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the logger of this subsystem for the specified plugin.
+     *
+     * @param container The plugin container
+     * @return The logger
+     */
+    public Logger getLogger(XtraCorePluginContainer container) {
+        // Loggers are cached by the logger factory
+        return LoggerFactory.getLogger(container.getLogger().getName() + "." + this.id);
+    }
+}
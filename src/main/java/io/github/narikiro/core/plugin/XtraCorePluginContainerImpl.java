@@ -25,7 +25,9 @@
 
 package io.github.narikiro.core.plugin;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -41,6 +43,8 @@ import io.github.narikiro.api.config.ConfigHandler;
 import io.github.narikiro.api.listener.ListenerHandler;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.api.text.HelpPaginationHandler;
+import io.github.narikiro.core.command.CommandGraph;
+import io.github.narikiro.core.data.DataStoreImpl;
 import io.github.narikiro.core.util.ReflectionScanner;
 import io.github.narikiro.core.util.store.CommandStore;
 
@@ -48,8 +52,12 @@ public class XtraCorePluginContainerImpl implements XtraCorePluginContainer {
 
     // Internals
     public Set<CommandStore> commandStores = new HashSet<>();
+    public CommandGraph commandGraph = CommandGraph.create();
     public Multimap<Class<? extends Command>, CommandRunnable> commandRunnables = ArrayListMultimap.create();
     public ReflectionScanner scanner;
+    // The objects XtraCore has instantiated for the plugin's commands, configs
+    // and listeners, so that each class is only instantiated once
+    public Map<Class<?>, Object> instances = new HashMap<>();
     // API
     private Object plugin;
     private PluginContainer pluginContainer;
@@ -59,6 +67,8 @@ public class XtraCorePluginContainerImpl implements XtraCorePluginContainer {
     private Optional<ConfigHandler> configHandler = Optional.empty();
     private Optional<ListenerHandler> listenerHandler = Optional.empty();
     private Optional<HelpPaginationHandler> helpPaginationHandler = Optional.empty();
+    // Created once first used
+    private DataStoreImpl dataStore;
 
     public XtraCorePluginContainerImpl(Object plugin, PluginContainer pluginContainer) {
         this.plugin = plugin;
@@ -100,6 +110,20 @@ public class XtraCorePluginContainerImpl implements XtraCorePluginContainer {
         return this.helpPaginationHandler;
     }
 
+    public synchronized DataStoreImpl getDataStore() {
+        if (this.dataStore == null) {
+            this.dataStore = DataStoreImpl.create(this);
+        }
+        return this.dataStore;
+    }
+
+    public synchronized void closeDataStore() {
+        if (this.dataStore != null) {
+            this.dataStore.close();
+            this.dataStore = null;
+        }
+    }
+
     public void setLogger(Logger logger) {
         this.logger = logger;
     }
@@ -27,27 +27,103 @@ package io.github.narikiro.core.registry;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import io.github.narikiro.api.command.Command;
 import io.github.narikiro.api.command.runnable.CommandRunnable;
 import io.github.narikiro.api.command.state.CommandState;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.api.registry.CommandRegistry;
+import io.github.narikiro.core.command.CommandGraph;
+import io.github.narikiro.core.command.CommandSearchIndex;
 import io.github.narikiro.core.internal.Internals;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import io.github.narikiro.core.util.CommandGetter;
+import io.github.narikiro.core.util.store.CommandStore;
 
 public class CommandRegistryImpl implements CommandRegistry {
 
     private Map<Command, XtraCorePluginContainer> globalCommands = new HashMap<>();
+    private final CommandGraph graph = CommandGraph.create();
+    private CommandSearchIndex searchIndex = new CommandSearchIndex();
+    // The commands by their lower case aliases
+    private Map<String, List<Command>> aliases = new ConcurrentHashMap<>();
+    // The command stores by the classes of their commands, so that executing
+    // a command does not go through the stores of its plugin
+    private Map<Class<?>, CommandStore> stores = new ConcurrentHashMap<>();
+
+    public void add(CommandStore store, XtraCorePluginContainerImpl container) {
+        Internals.globalLogger.info("Adding command '" + store.primaryAlias() + "' to the global command registry!");
+        this.globalCommands.put(store.command(), container);
+        this.stores.put(store.command().getClass(), store);
+    }
+
+    public Optional<CommandStore> getStore(Class<? extends Command> clazz) {
+        checkNotNull(clazz, "Command class cannot be null!");
+        return Optional.ofNullable(this.stores.get(clazz));
+    }
+
+    /**
+     * Gets the primary alias of the specified command, from its store if it
+     * has been registered, so that it does not create the aliases again.
+     *
+     * @param command The command
+     * @return The primary alias
+     */
+    public String getPrimaryAlias(Command command) {
+        CommandStore store = this.stores.get(command.getClass());
+        return store != null ? store.primaryAlias() : command.aliases()[0];
+    }
+
+    /**
+     * Adds the specified commands to the global command graph and search
+     * index. Commands of other plugins may be children of these commands.
+     *
+     * @param commands The commands of a plugin
+     */
+    public void addToGraph(Collection<? extends Command> commands) {
+        checkNotNull(commands, "Commands cannot be null!");
+        for (Command command : commands) {
+            for (String alias : command.aliases()) {
+                this.aliases.computeIfAbsent(alias.toLowerCase(Locale.ROOT), k -> new CopyOnWriteArrayList<>()).add(command);
+            }
+        }
+        this.searchIndex.addAll(commands);
+        this.graph.add(commands);
+    }
+
+    /**
+     * Gets the registered commands with the specified alias, ignoring case.
+     *
+     * @param alias The alias
+     * @return The commands with the alias
+     */
+    public List<Command> getCommandsByAlias(String alias) {
+        checkNotNull(alias, "Alias cannot be null!");
+        return this.aliases.getOrDefault(alias.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+
+    /**
+     * Gets the parent and child relations of all registered commands, across
+     * all plugins.
+     *
+     * @return The global command graph
+     */
+    public CommandGraph getGraph() {
+        return this.graph;
+    }
 
-    public void add(Command command, XtraCorePluginContainerImpl container) {
-        Internals.globalLogger.info("Adding command '" + command.aliases()[0] + "' to the global command registry!");
-        this.globalCommands.put(command, container);
+    public CommandSearchIndex getSearchIndex() {
+        return this.searchIndex;
     }
 
     @Override
@@ -27,26 +27,28 @@ package io.github.narikiro.core.text;
 
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 import org.spongepowered.api.text.Text;
 import io.github.narikiro.api.command.Command;
 import io.github.narikiro.api.text.ContentEntry;
 
+/**
+ * An entry of a help list. Only the command and description texts are kept,
+ * and the complete text is put together from them the first time it is shown,
+ * as most entries are never on a shown page.
+ */
 public class ContentEntryImpl implements ContentEntry {
 
     private Command command;
-    private Text completeText;
     private Text commandText;
-    private Optional<Text> descriptionText;
+    @Nullable private Text descriptionText;
+    @Nullable private Text completeText;
 
-    public ContentEntryImpl(Command command, Text completeText, Text commandText, Text descriptionText) {
+    public ContentEntryImpl(Command command, Text commandText, @Nullable Text descriptionText) {
         this.command = command;
-        this.completeText = completeText;
         this.commandText = commandText;
-        if (descriptionText != null) {
-            this.descriptionText = Optional.of(descriptionText);
-        } else {
-            this.descriptionText = Optional.empty();
-        }
+        this.descriptionText = descriptionText;
     }
 
     @Override
@@ -56,7 +58,17 @@ public class ContentEntryImpl implements ContentEntry {
 
     @Override
     public Text getCompleteText() {
-        return this.completeText;
+        if (this.descriptionText == null) {
+            return this.commandText;
+        }
+        // Texts are immutable, so a race only puts the text together twice
+        Text text = this.completeText;
+        if (text == null) {
+            // The separator has the color of the command
+            text = Text.of(this.commandText.getColor(), this.commandText, " - ", this.descriptionText);
+            this.completeText = text;
+        }
+        return text;
     }
 
     @Override
@@ -66,6 +78,6 @@ public class ContentEntryImpl implements ContentEntry {
 
     @Override
     public Optional<Text> getDescriptionText() {
-        return this.descriptionText;
+        return Optional.ofNullable(this.descriptionText);
     }
 }
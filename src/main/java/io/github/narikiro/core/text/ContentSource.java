@@ -0,0 +1,66 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.text;
+
+import java.util.List;
+
+import org.spongepowered.api.text.Text;
+
+/**
+ * The lines of a paginated output, which are only created once the page they
+ * are on is shown. See {@link PagedOutput}.
+ */
+public interface ContentSource {
+
+    /**
+     * Gets the amount of lines.
+     */
+    int size();
+
+    /**
+     * Gets the line at the specified index, which is between 0 and
+     * {@link #size()}.
+     *
+     * @param index The index of the line
+     * @return The line
+     */
+    Text get(int index);
+
+    static ContentSource of(List<Text> lines) {
+        return new ContentSource() {
+
+            @Override
+            public int size() {
+                return lines.size();
+            }
+
+            @Override
+            public Text get(int index) {
+                return lines.get(index);
+            }
+        };
+    }
+}
@@ -25,16 +25,24 @@
 
 package io.github.narikiro.core.text;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import io.github.narikiro.api.command.Command;
+import io.github.narikiro.api.command.state.CommandState;
 import io.github.narikiro.api.text.ContentEntry;
 import io.github.narikiro.api.text.HelpPaginationHandler;
 import io.github.narikiro.core.CoreImpl;
+import io.github.narikiro.core.command.CommandSearchIndex;
 import io.github.narikiro.core.event.XtraCoreHelpPaginationHandlerInitializedEventImpl;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.logger.Subsystem;
 import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
+import io.github.narikiro.core.registry.CommandRegistryImpl;
 import io.github.narikiro.core.util.CommandHelper;
 import io.github.narikiro.core.util.store.CommandStore;
+import org.slf4j.Logger;
 import org.spongepowered.api.Sponge;
+import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.service.pagination.PaginationList;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.channel.MessageReceiver;
@@ -43,8 +51,18 @@ import org.spongepowered.api.text.format.TextColors;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 /**
  * A base class for creating {@link PaginationList}s for the commands of the
@@ -53,28 +71,243 @@ import java.util.List;
  */
 public class HelpPaginationHandlerImpl implements HelpPaginationHandler {
 
+    private static final int MAX_FILTERED_LISTS = 256;
+
     private XtraCorePluginContainerImpl container;
     private CommandHelper helper;
     private PaginationList.Builder paginationBuilder;
     private Text title;
     private Text padding;
-    private List<ContentEntry> contents;
     private List<Class<? extends Command>> ignoredCommands = new ArrayList<>();
     private TextColor commandColor;
     private TextColor descriptionColor;
     private ChildBehavior childBehavior;
     private CommandOrdering commandOrdering;
+    // The listed commands, sorted by the comparator of the command ordering.
+    // Entries are inserted, removed or replaced one at a time as commands
+    // change, and the lists shown to viewers are patched along with them.
+    // Each change finds its position by binary search, but shifting the
+    // arrays is linear. Commands only change when they are registered or
+    // their state is set, and a shift is a single array copy, so this is
+    // cheaper than keeping a tree for every list.
+    private Comparator<Entry> comparator;
+    private List<Entry> entries = new ArrayList<>();
+    private List<ContentEntry> contents = new ArrayList<>();
+    private Map<Command, Entry> entriesByCommand = new HashMap<>();
+    private Map<Command, CommandStore> stores = new HashMap<>();
+    // Keeps the default ordering in the order the commands were added
+    private long nextSequence;
+    // The permissions needed by the listed commands
+    private List<String> permissions = new ArrayList<>();
+    private Map<String, Integer> permissionIndices = new HashMap<>();
+    // The lists shown to viewers, by the permissions they hold. Viewers
+    // holding the same permissions share a list, and the least recently used
+    // lists are dropped once there are too many.
+    private Map<BitSet, FilteredList> filteredLists = new LinkedHashMap<BitSet, FilteredList>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BitSet, FilteredList> eldest) {
+            return this.size() > MAX_FILTERED_LISTS;
+        }
+    };
+    // The full list is only created if it is asked for
+    private boolean builderFilled;
     // For the builder
     private HelpPaginationHandlerImpl instance;
 
     @Override
     public PaginationList getList() {
-        return this.paginationBuilder.build();
+        return this.getPaginationBuilder().build();
     }
 
+    /**
+     * Sends the help list to the specified receiver. If the receiver is a
+     * command source, only the commands it may run are listed and disabled
+     * commands are left out. Command sources are sent the list a page at a
+     * time through the {@link PagedOutput}, using the title, padding and lines
+     * per page of the pagination builder, so that only the shown page is
+     * rendered. Other receivers are sent the complete list.
+     *
+     * @param receiver The receiver to send the list to
+     */
     @Override
     public void sendList(MessageReceiver receiver) {
-        this.paginationBuilder.sendTo(receiver);
+        if (!(receiver instanceof CommandSource)) {
+            this.getPaginationBuilder().sendTo(receiver);
+            return;
+        }
+        CommandSource source = (CommandSource) receiver;
+        PaginationList settings;
+        FilteredList visible;
+        synchronized (this) {
+            settings = this.getSettings();
+            visible = this.filteredLists.computeIfAbsent(this.getFingerprint(source), this::createFilteredList);
+        }
+        // The title and the page numbers take a line each
+        int linesPerPage = Math.max(1, settings.getLinesPerPage() - 2);
+        CoreImpl.instance.getPagedOutput().send(source, settings.getTitle().orElse(this.title), settings.getPadding(), linesPerPage, visible);
+    }
+
+    // The pagination builder has no getters, so its settings are read from a
+    // list built from it
+    private PaginationList getSettings() {
+        if (!this.builderFilled) {
+            // Don't render every entry just for the settings, the contents are
+            // filled in once the builder is asked for
+            this.paginationBuilder.contents(Collections.<Text>emptyList());
+        }
+        return this.paginationBuilder.build();
+    }
+
+    /**
+     * Searches the help entries of the commands matching the specified query,
+     * using the search index over all registered commands.
+     *
+     * @param query The query
+     * @return The matching entries, best match first
+     */
+    public synchronized List<ContentEntry> search(String query) {
+        List<ContentEntry> results = new ArrayList<>();
+        for (Entry entry : this.searchEntries(query)) {
+            results.add(entry.content);
+        }
+        return results;
+    }
+
+    /**
+     * Sends the help entries matching the specified query which the source
+     * may see, a page at a time.
+     *
+     * @param source The command source
+     * @param query The query
+     */
+    public void sendSearch(CommandSource source, String query) {
+        List<ContentEntry> results = new ArrayList<>();
+        synchronized (this) {
+            BitSet fingerprint = this.getFingerprint(source);
+            for (Entry entry : this.searchEntries(query)) {
+                if (entry.isShown(fingerprint)) {
+                    results.add(entry.content);
+                }
+            }
+        }
+        CoreImpl.instance.getPagedOutput().send(source, Text.of(this.title, " - ", query), this.padding, new ContentSource() {
+
+            @Override
+            public int size() {
+                return results.size();
+            }
+
+            @Override
+            public Text get(int index) {
+                return results.get(index).getCompleteText();
+            }
+        });
+    }
+
+    private List<Entry> searchEntries(String query) {
+        List<Entry> entries = new ArrayList<>();
+        CommandSearchIndex index = ((CommandRegistryImpl) CoreImpl.instance.getCommandRegistry()).getSearchIndex();
+        for (Command command : index.search(query, Integer.MAX_VALUE)) {
+            Entry entry = this.entriesByCommand.get(command);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private BitSet getFingerprint(CommandSource source) {
+        BitSet fingerprint = new BitSet(this.permissions.size());
+        for (int i = 0; i < this.permissions.size(); i++) {
+            if (source.hasPermission(this.permissions.get(i))) {
+                fingerprint.set(i);
+            }
+        }
+        return fingerprint;
+    }
+
+    private FilteredList createFilteredList(BitSet fingerprint) {
+        List<Entry> visible = new ArrayList<>();
+        for (Entry entry : this.entries) {
+            if (entry.isShown(fingerprint)) {
+                visible.add(entry);
+            }
+        }
+        return new FilteredList(visible.toArray(new Entry[0]));
+    }
+
+    /**
+     * Adds the specified commands to the list, or updates their entries if
+     * they are already listed. Besides the commands themselves, only the
+     * entries of their parents and children are replaced, as those decide
+     * whether and where the commands are listed.
+     *
+     * @param stores The command stores of the commands
+     */
+    public synchronized void addCommands(Collection<CommandStore> stores) {
+        checkNotNull(stores, "Command stores cannot be null!");
+        for (CommandStore store : stores) {
+            this.stores.put(store.command(), store);
+        }
+        Set<CommandStore> changed = new LinkedHashSet<>(stores);
+        for (CommandStore store : stores) {
+            Command parent = this.helper.getParentCommand(store.command());
+            if (parent != null && this.stores.containsKey(parent)) {
+                changed.add(this.stores.get(parent));
+            }
+            for (Command child : this.helper.getChildCommands(store.command())) {
+                if (this.stores.containsKey(child)) {
+                    changed.add(this.stores.get(child));
+                }
+            }
+        }
+        for (CommandStore store : changed) {
+            this.update(store);
+        }
+    }
+
+    private void update(CommandStore store) {
+        Entry previous = this.entriesByCommand.remove(store.command());
+        if (previous != null) {
+            this.remove(Collections.binarySearch(this.entries, previous, this.comparator));
+        }
+        Entry entry = this.createEntry(store, previous != null ? previous.sequence : this.nextSequence++);
+        if (entry != null) {
+            this.entriesByCommand.put(store.command(), entry);
+            this.insert(-Collections.binarySearch(this.entries, entry, this.comparator) - 1, entry);
+        }
+        this.builderFilled = false;
+    }
+
+    private void insert(int index, Entry entry) {
+        this.entries.add(index, entry);
+        this.contents.add(index, entry.content);
+        this.filteredLists.replaceAll((fingerprint, list) -> entry.isShown(fingerprint) ? list.with(entry, this.comparator) : list);
+    }
+
+    private void remove(int index) {
+        Entry entry = this.entries.remove(index);
+        this.contents.remove(index);
+        this.filteredLists.replaceAll((fingerprint, list) -> list.without(entry, this.comparator));
+    }
+
+    /**
+     * Updates the lists shown to viewers after the state of the specified
+     * command changed, by adding or removing only its entry.
+     *
+     * @param store The command store of the command
+     */
+    public synchronized void updateState(CommandStore store) {
+        checkNotNull(store, "Command store cannot be null!");
+        Entry entry = this.entriesByCommand.get(store.command());
+        if (entry == null) {
+            return;
+        }
+        this.filteredLists.replaceAll((fingerprint, list) -> entry.isShown(fingerprint) ? list.with(entry, this.comparator)
+                : list.without(entry, this.comparator));
     }
 
     @Override
@@ -93,18 +326,27 @@ public class HelpPaginationHandlerImpl implements HelpPaginationHandler {
     }
 
     @Override
-    public List<ContentEntry> getContents() {
-        return this.contents;
+    public synchronized List<ContentEntry> getContents() {
+        // A copy, as the list changes whenever commands do
+        return Collections.unmodifiableList(new ArrayList<>(this.contents));
     }
 
     @Override
-    public PaginationList.Builder getPaginationBuilder() {
+    public synchronized PaginationList.Builder getPaginationBuilder() {
+        if (!this.builderFilled) {
+            List<Text> textContents = new ArrayList<>(this.contents.size());
+            for (ContentEntry entry : this.contents) {
+                textContents.add(entry.getCompleteText());
+            }
+            this.paginationBuilder.contents(textContents);
+            this.builderFilled = true;
+        }
         return this.paginationBuilder;
     }
 
     private HelpPaginationHandlerImpl generateContents() {
-        this.container.getLogger().info("Generating the contents for the help pagination list!");
-        this.contents = new ArrayList<>();
+        Logger logger = Subsystem.HELP.getLogger(this.container);
+        logger.info("Generating the contents for the help pagination list!");
         if (this.childBehavior == null) {
             this.childBehavior = ChildBehavior.BOTH;
         }
@@ -117,81 +359,113 @@ public class HelpPaginationHandlerImpl implements HelpPaginationHandler {
         if (this.descriptionColor == null) {
             this.descriptionColor = TextColors.GREEN;
         }
-        this.container.getLogger().info("Using settings:");
-        this.container.getLogger().info("Child behavior: " + this.childBehavior);
-        this.container.getLogger().info("Command ordering: " + this.commandOrdering);
-        this.container.getLogger().info("Command color: " + this.commandColor.getName());
-        this.container.getLogger().info("Description color: " + this.descriptionColor.getName());
-        List<CommandStore> commandStores = this.helper.orderContents(this.container.commandStores, this.commandOrdering);
-        for (CommandStore store : commandStores) {
-            if (!this.ignoredCommands.contains(store.command().getClass())) {
-                Command cmd = store.command();
-                Command parentCommand = this.helper.getParentCommand(cmd);
-                String commandString = null;
-                if (this.childBehavior.equals(ChildBehavior.IGNORE_PARENT)) {
-                    // If the child commands is empty, then this is not a
-                    // parent command
-                    if (this.helper.getChildCommands(store.command()).isEmpty()) {
-                        if (parentCommand == null) {
-                            commandString = "/" + cmd.aliases()[0];
-                        } else {
-                            commandString = "/" + parentCommand.aliases()[0] + " " + cmd.aliases()[0];
-                        }
-                    } else {
-                        continue;
-                    }
-                } else if (this.childBehavior.equals(ChildBehavior.IGNORE_CHILD)) {
-                    // If the parent is null, then there is no parent
-                    // command. Therefore this command is not a child.
-                    if (parentCommand == null) {
-                        commandString = "/" + cmd.aliases()[0];
-                    } else {
-                        continue;
-                    }
-                } else if (this.childBehavior.equals(ChildBehavior.BOTH)) {
-                    // Don't ignore anything
-                    commandString = parentCommand != null ? "/" + parentCommand.aliases()[0] + " " + cmd.aliases()[0] : "/" + cmd.aliases()[0];
-                }
+        logger.debug("Using settings:");
+        logger.debug("Child behavior: {}", this.childBehavior);
+        logger.debug("Command ordering: {}", this.commandOrdering);
+        logger.debug("Command color: {}", this.commandColor.getName());
+        logger.debug("Description color: {}", this.descriptionColor.getName());
+        // Commands listed first come before the others, then the ordering
+        // decides, and the default ordering keeps the order they were added in
+        Comparator<CommandStore> comparator = CommandHelper.getComparator(this.commandOrdering);
+        this.comparator = (a, b) -> {
+            if (a.listedFirst != b.listedFirst) {
+                return a.listedFirst ? -1 : 1;
+            }
+            int result = comparator.compare(a.store, b.store);
+            return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+        };
+        this.addCommands(this.container.commandStores);
+        logger.info("Help pagination list contents generated!");
+        return this;
+    }
 
-                if (store.command().usage() != null) {
-                    commandString += " " + store.command().usage();
-                }
-                this.container.getLogger().info("Adding command string: " + commandString);
-                if (cmd.description() != null) {
-                    this.container.getLogger().info("Adding command description: " + cmd.description());
-                    this.contents
-                            .add(new ContentEntryImpl(cmd, Text.of(this.commandColor, commandString, " - ", this.descriptionColor, cmd.description()),
-                                    Text.of(this.commandColor, commandString), Text.of(this.descriptionColor, cmd.description())));
+    @Nullable
+    private Entry createEntry(CommandStore store, long sequence) {
+        Command cmd = store.command();
+        if (this.ignoredCommands.contains(cmd.getClass())) {
+            return null;
+        }
+        Logger logger = Subsystem.HELP.getLogger(this.container);
+        Command parentCommand = this.helper.getParentCommand(cmd);
+        String alias = store.primaryAlias();
+        String commandString = null;
+        if (this.childBehavior.equals(ChildBehavior.IGNORE_PARENT)) {
+            // If the child commands is empty, then this is not a parent
+            // command
+            if (this.helper.getChildCommands(cmd).isEmpty()) {
+                if (parentCommand == null) {
+                    commandString = "/" + alias;
                 } else {
-                    this.contents.add(
-                            new ContentEntryImpl(cmd, Text.of(this.commandColor, commandString), Text.of(this.commandColor, commandString), null));
+                    commandString = "/" + this.getPrimaryAlias(parentCommand) + " " + alias;
                 }
+            } else {
+                return null;
+            }
+        } else if (this.childBehavior.equals(ChildBehavior.IGNORE_CHILD)) {
+            // If the parent is null, then there is no parent command.
+            // Therefore this command is not a child.
+            if (parentCommand == null) {
+                commandString = "/" + alias;
+            } else {
+                return null;
             }
+        } else if (this.childBehavior.equals(ChildBehavior.BOTH)) {
+            // Don't ignore anything
+            commandString = parentCommand != null ? "/" + this.getPrimaryAlias(parentCommand) + " " + alias : "/" + alias;
         }
-        List<Text> textContents = new ArrayList<>();
-        for (ContentEntry entry : this.contents) {
-            textContents.add(entry.getCompleteText());
+
+        if (cmd.usage() != null) {
+            commandString += " " + cmd.usage();
         }
-        this.paginationBuilder.contents(textContents);
-        this.container.getLogger().info("Help pagination list contents generated!");
-        return this;
+        logger.debug("Adding command string: {}", commandString);
+        ContentEntry content;
+        String description = cmd.description();
+        if (description != null) {
+            logger.debug("Adding command description: {}", description);
+            content = new ContentEntryImpl(cmd, Text.of(this.commandColor, commandString), Text.of(this.descriptionColor, description));
+        } else {
+            content = new ContentEntryImpl(cmd, Text.of(this.commandColor, commandString), null);
+        }
+        return new Entry(store, content, this.getPermissionIndices(cmd), this.helper.isListedFirst(cmd, this.commandOrdering), sequence);
+    }
+
+    private int[] getPermissionIndices(Command command) {
+        // Sponge checks the permission of every parent before the child is
+        // run
+        List<Integer> indices = new ArrayList<>();
+        for (Command cmd = command; cmd != null; cmd = this.helper.getParentCommand(cmd)) {
+            CommandStore store = this.stores.get(cmd);
+            String permission = store != null ? store.permission() : cmd.permission();
+            if (permission != null) {
+                indices.add(this.permissionIndices.computeIfAbsent(permission, k -> {
+                    this.permissions.add(k);
+                    return this.permissions.size() - 1;
+                }));
+            }
+        }
+        int[] array = new int[indices.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indices.get(i);
+        }
+        return array;
+    }
+
+    private String getPrimaryAlias(Command command) {
+        CommandStore store = this.stores.get(command);
+        return store != null ? store.primaryAlias() : command.aliases()[0];
     }
 
     private void setDefaults() {
         this.container.getLogger().info("Setting the pagination default values.");
-        if (this.title != null) {
-            this.paginationBuilder.title(this.title);
-        } else {
+        if (this.title == null) {
             // Default to plugin name
-            this.paginationBuilder.title(Text.of(TextColors.GOLD, this.container.getPluginContainer().getName()));
+            this.title = Text.of(TextColors.GOLD, this.container.getPluginContainer().getName());
         }
-        if (this.padding != null) {
-            this.paginationBuilder.padding(padding);
-        } else {
-            this.paginationBuilder.padding(Text.of("-="));
+        if (this.padding == null) {
+            this.padding = Text.of("-=");
         }
-        this.commandColor = TextColors.GREEN;
-        this.descriptionColor = TextColors.GOLD;
+        this.paginationBuilder.title(this.title);
+        this.paginationBuilder.padding(this.padding);
     }
 
     public class Builder implements HelpPaginationHandler.Builder {
@@ -247,4 +521,80 @@ public class HelpPaginationHandlerImpl implements HelpPaginationHandler {
             return instance;
         }
     }
+
+    // The entries shown to viewers holding some permissions, in the order of
+    // the help list. Changes replace the list with a patched copy, so viewers
+    // paging through an older list are not affected.
+    private static class FilteredList implements ContentSource {
+
+        private final Entry[] entries;
+
+        private FilteredList(Entry[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public int size() {
+            return this.entries.length;
+        }
+
+        @Override
+        public Text get(int index) {
+            return this.entries[index].content.getCompleteText();
+        }
+
+        private FilteredList with(Entry entry, Comparator<Entry> comparator) {
+            int position = Arrays.binarySearch(this.entries, entry, comparator);
+            if (position >= 0) {
+                return this;
+            }
+            int insertion = -position - 1;
+            Entry[] updated = new Entry[this.entries.length + 1];
+            System.arraycopy(this.entries, 0, updated, 0, insertion);
+            updated[insertion] = entry;
+            System.arraycopy(this.entries, insertion, updated, insertion + 1, this.entries.length - insertion);
+            return new FilteredList(updated);
+        }
+
+        private FilteredList without(Entry entry, Comparator<Entry> comparator) {
+            int position = Arrays.binarySearch(this.entries, entry, comparator);
+            if (position < 0) {
+                return this;
+            }
+            Entry[] updated = new Entry[this.entries.length - 1];
+            System.arraycopy(this.entries, 0, updated, 0, position);
+            System.arraycopy(this.entries, position + 1, updated, position, updated.length - position);
+            return new FilteredList(updated);
+        }
+    }
+
+    private static class Entry {
+
+        private CommandStore store;
+        private ContentEntry content;
+        // The indices of the permissions needed to run the command
+        private int[] permissions;
+        private boolean listedFirst;
+        private long sequence;
+
+        private Entry(CommandStore store, ContentEntry content, int[] permissions, boolean listedFirst, long sequence) {
+            this.store = store;
+            this.content = content;
+            this.permissions = permissions;
+            this.listedFirst = listedFirst;
+            this.sequence = sequence;
+        }
+
+        private boolean isShown(BitSet fingerprint) {
+            if (this.store.state() == CommandState.DISABLED) {
+                return false;
+            }
+            for (int permission : this.permissions) {
+                if (!fingerprint.get(permission)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,170 @@
+/**
+ * This file is part of XtraCore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2016 - 2018 LaXamer <https://github.com/LaXamer>
+ * Copyright (c) Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.narikiro.core.text;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.action.TextActions;
+import org.spongepowered.api.text.format.TextColors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Sends long outputs one page at a time. Only the lines of the shown page are
+ * rendered, and each command source has a cursor remembering its last output,
+ * so that other pages can be shown with {@code /xtracore page}. Cursors are
+ * forgotten once they have not been used for a while. The arrows below a page
+ * run callbacks, so paging through does not need any command permission.
+ */
+public class PagedOutput {
+
+    public static final int LINES_PER_PAGE = 15;
+    private static final Text PADDING = Text.of(TextColors.GOLD, "-=-=-=-=");
+
+    private Cache<String, Cursor> cursors = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).maximumSize(1000).build();
+
+    /**
+     * Sends the first page of the specified content to the source.
+     *
+     * @param src The command source
+     * @param title The title shown above every page
+     * @param source The lines of the output
+     */
+    public void send(CommandSource src, Text title, ContentSource source) {
+        this.send(src, title, PADDING, source);
+    }
+
+    /**
+     * Sends the first page of the specified content to the source.
+     *
+     * @param src The command source
+     * @param title The title shown above every page
+     * @param padding The padding around the title and the page numbers
+     * @param source The lines of the output
+     */
+    public void send(CommandSource src, Text title, Text padding, ContentSource source) {
+        this.send(src, title, padding, LINES_PER_PAGE, source);
+    }
+
+    /**
+     * Sends the first page of the specified content to the source.
+     *
+     * @param src The command source
+     * @param title The title shown above every page
+     * @param padding The padding around the title and the page numbers
+     * @param linesPerPage The amount of lines of content on a page
+     * @param source The lines of the output
+     */
+    public void send(CommandSource src, Text title, Text padding, int linesPerPage, ContentSource source) {
+        checkNotNull(src, "Command source cannot be null!");
+        checkNotNull(title, "Title cannot be null!");
+        checkNotNull(padding, "Padding cannot be null!");
+        checkArgument(linesPerPage > 0, "Lines per page must be positive!");
+        checkNotNull(source, "Content source cannot be null!");
+        Cursor cursor = new Cursor(title, padding, linesPerPage, source);
+        this.cursors.put(src.getIdentifier(), cursor);
+        this.render(src, cursor, 1);
+    }
+
+    /**
+     * Sends the specified page of the last output of the source.
+     *
+     * @param src The command source
+     * @param page The page, starting at 1
+     * @return False if the source has no output to page through
+     */
+    public boolean sendPage(CommandSource src, int page) {
+        Cursor cursor = this.cursors.getIfPresent(src.getIdentifier());
+        if (cursor == null) {
+            return false;
+        }
+        this.render(src, cursor, page);
+        return true;
+    }
+
+    /**
+     * Sends the page after, or before, the current page of the last output of
+     * the source.
+     *
+     * @param src The command source
+     * @param offset The amount of pages to move
+     * @return False if the source has no output to page through
+     */
+    public boolean move(CommandSource src, int offset) {
+        Cursor cursor = this.cursors.getIfPresent(src.getIdentifier());
+        if (cursor == null) {
+            return false;
+        }
+        this.render(src, cursor, cursor.page + offset);
+        return true;
+    }
+
+    private void render(CommandSource src, Cursor cursor, int page) {
+        int pages = Math.max(1, (cursor.source.size() + cursor.linesPerPage - 1) / cursor.linesPerPage);
+        page = Math.max(1, Math.min(page, pages));
+        cursor.page = page;
+
+        src.sendMessage(Text.of(cursor.padding, " ", cursor.title, " ", cursor.padding));
+        int end = Math.min(page * cursor.linesPerPage, cursor.source.size());
+        for (int i = (page - 1) * cursor.linesPerPage; i < end; i++) {
+            src.sendMessage(cursor.source.get(i));
+        }
+        if (pages > 1) {
+            // The callbacks page through this output, even if the source has
+            // been sent another one since
+            int shown = page;
+            Text previous = page > 1 ? Text.builder("«").color(TextColors.AQUA)
+                    .onClick(TextActions.executeCallback(clicker -> this.render(clicker, cursor, shown - 1))).build()
+                    : Text.of(TextColors.DARK_GRAY, "«");
+            Text next = page < pages ? Text.builder("»").color(TextColors.AQUA)
+                    .onClick(TextActions.executeCallback(clicker -> this.render(clicker, cursor, shown + 1))).build()
+                    : Text.of(TextColors.DARK_GRAY, "»");
+            src.sendMessage(Text.of(cursor.padding, " ", previous, TextColors.GREEN, " Page ", page, " of ", pages, " ", next, " ", cursor.padding));
+        }
+    }
+
+    private static class Cursor {
+
+        private Text title;
+        private Text padding;
+        private int linesPerPage;
+        private ContentSource source;
+        private int page = 1;
+
+        private Cursor(Text title, Text padding, int linesPerPage, ContentSource source) {
+            this.title = title;
+            this.padding = padding;
+            this.linesPerPage = linesPerPage;
+            this.source = source;
+        }
+    }
+}
@@ -25,17 +25,15 @@
 
 package io.github.narikiro.core.util;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Comparator;
+import java.util.Optional;
 import java.util.Set;
 
 import io.github.narikiro.api.command.Command;
-import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.api.text.HelpPaginationHandler.CommandOrdering;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 import io.github.narikiro.core.text.HelpPaginationHandlerImpl;
 import io.github.narikiro.core.util.store.CommandStore;
 
@@ -44,10 +42,10 @@ import io.github.narikiro.core.util.store.CommandStore;
  */
 public class CommandHelper {
 
-    private XtraCorePluginContainer container;
+    private XtraCorePluginContainerImpl container;
 
     public CommandHelper(XtraCorePluginContainer entry) {
-        this.container = entry;
+        this.container = (XtraCorePluginContainerImpl) entry;
     }
 
     /**
@@ -58,16 +56,7 @@ public class CommandHelper {
      * @return The child commands of the specified command
      */
     public Set<Command> getChildCommands(Command command) {
-        this.container.getLogger().info("Getting the child commands for the command: " + command.aliases()[0]);
-        Set<Command> childCommands = new HashSet<>();
-        for (Command cmd : container.getCommandHandler().get().getCommands()) {
-            Command parentCommand = getParentCommand(cmd);
-            if (parentCommand != null && parentCommand.equals(command)) {
-                this.container.getLogger().info("Child command found! Child command is: " + cmd.aliases()[0]);
-                childCommands.add(cmd);
-            }
-        }
-        return childCommands;
+        return this.container.commandGraph.getChildren(command);
     }
 
     /**
@@ -77,11 +66,7 @@ public class CommandHelper {
      * @return The parent command
      */
     public Command getParentCommand(Command command) {
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Getting the parent command for the command: '" + command.aliases()[0] + "'.");
-        Class<? extends Command> parentCommand = command.getClass().getAnnotation(RegisterCommand.class).childOf();
-        Command parentCommand2 = getEquivalentCommand(parentCommand);
-        return parentCommand2;
+        return this.container.commandGraph.getParent(command).orElse(null);
     }
 
     /**
@@ -92,7 +77,12 @@ public class CommandHelper {
      * @return The command object for the specified class
      */
     public Command getEquivalentCommand(Class<? extends Command> clazz) {
-        for (Command cmd : this.container.getCommandHandler().get().getCommands()) {
+        Optional<Command> command = this.container.commandGraph.getCommand(clazz);
+        if (command.isPresent()) {
+            return command.get();
+        }
+        // The class may be a super class of the command
+        for (Command cmd : this.container.commandGraph.getCommands()) {
             if (clazz.isInstance(cmd)) {
                 return cmd;
             }
@@ -100,71 +90,50 @@ public class CommandHelper {
         return null;
     }
 
-    public List<CommandStore> orderContents(Set<CommandStore> contentsStore, HelpPaginationHandlerImpl.CommandOrdering ordering) {
-        List<CommandStore> commandStores = new ArrayList<>(contentsStore);
-        if (ordering.equals(CommandOrdering.DEFAULT)) {
-            return commandStores;
-        }
-        if (ordering.equals(CommandOrdering.A_Z)) {
-            Collections.sort(commandStores);
-            return commandStores;
-        }
-        if (ordering.equals(CommandOrdering.Z_A)) {
-            Collections.sort(commandStores);
-            Collections.reverse(commandStores);
-            return commandStores;
-        }
+    /**
+     * Gets whether the specified command is listed before the other commands
+     * with the specified ordering, which depends on whether it has parent or
+     * child commands.
+     *
+     * @param command The command
+     * @param ordering The ordering
+     * @return Whether the command is listed first
+     */
+    public boolean isListedFirst(Command command, CommandOrdering ordering) {
+        boolean parentsFirst = ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_A_Z) || ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_Z_A)
+                || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_A_Z)
+                || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_Z_A);
+        boolean childrenFirst = ordering.equals(CommandOrdering.CHILD_COMMANDS_FIRST_A_Z) || ordering.equals(CommandOrdering.CHILD_COMMANDS_FIRST_Z_A)
+                || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_A_Z)
+                || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_Z_A);
+        return parentsFirst && !this.getChildCommands(command).isEmpty() || childrenFirst && this.getParentCommand(command) != null;
+    }
 
-        Set<Command> topCommands = new HashSet<>();
-        for (CommandStore commandStore2 : commandStores) {
-            if (commandStore2.childOf() != null) {
-                if (ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_A_Z)
-                        || ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_Z_A)) {
-                    topCommands.add(commandStore2.childOf());
-                } else if (ordering.equals(CommandOrdering.CHILD_COMMANDS_FIRST_A_Z)
-                        || ordering.equals(CommandOrdering.CHILD_COMMANDS_FIRST_Z_A)) {
-                    topCommands.add(commandStore2.command());
-                } else if (ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_A_Z)
-                        || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_Z_A)) {
-                    topCommands.add(commandStore2.childOf());
-                    topCommands.add(commandStore2.command());
-                } else {
-                    Internals.globalLogger.error("Could not find an appropriate command order for the command ordering. Returning the default list.",
-                            new IllegalArgumentException());
-                    return commandStores;
-                }
-            }
-        }
-        // Get the command stores for these commands
-        List<CommandStore> topCmds = new ArrayList<>();
-        for (Command command : topCommands) {
-            for (CommandStore commandStore : commandStores) {
-                if (commandStore.command().equals(command)) {
-                    topCmds.add(commandStore);
-                }
-            }
+    /**
+     * Gets the comparator sorting command stores by their precomputed sort
+     * keys in the direction of the specified ordering. Whether commands are
+     * listed first is not part of it, see
+     * {@link #isListedFirst(Command, CommandOrdering)}.
+     *
+     * @param ordering The ordering
+     * @return The comparator, which treats all stores as equal for the
+     *         default ordering
+     */
+    public static Comparator<CommandStore> getComparator(HelpPaginationHandlerImpl.CommandOrdering ordering) {
+        if (ordering.equals(CommandOrdering.A_Z) || ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_A_Z)
+                || ordering.equals(CommandOrdering.CHILD_COMMANDS_FIRST_A_Z)
+                || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_A_Z)) {
+            return CommandStore::compareTo;
         }
-
-        // Sort them
-        Collections.sort(topCmds);
-        Collections.sort(commandStores);
-
-        // If z-a, reverse the sorting
-        if (ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_Z_A)
+        if (ordering.equals(CommandOrdering.Z_A) || ordering.equals(CommandOrdering.PARENT_COMMANDS_FIRST_Z_A)
                 || ordering.equals(CommandOrdering.CHILD_COMMANDS_FIRST_Z_A)
                 || ordering.equals(CommandOrdering.PARENT_AND_CHILD_FIRST_NON_LAST_Z_A)) {
-            Collections.reverse(topCmds);
-            Collections.reverse(commandStores);
+            return (a, b) -> b.compareTo(a);
         }
-
-        // Now create a new list based from the other two lists
-        List<CommandStore> newList = new ArrayList<>();
-        newList.addAll(topCmds);
-        for (CommandStore commandStore : commandStores) {
-            if (!newList.contains(commandStore)) {
-                newList.add(commandStore);
-            }
+        if (!ordering.equals(CommandOrdering.DEFAULT)) {
+            Internals.globalLogger.error("Could not find an appropriate command order for the command ordering. Using the default order.",
+                    new IllegalArgumentException());
         }
-        return newList;
+        return (a, b) -> 0;
     }
 }
@@ -33,6 +33,7 @@ import org.reflections.Reflections;
 import org.reflections.scanners.MethodAnnotationsScanner;
 import org.reflections.scanners.SubTypesScanner;
 import org.reflections.scanners.TypeAnnotationsScanner;
+import org.slf4j.Logger;
 import org.spongepowered.api.event.Listener;
 import org.spongepowered.api.plugin.Plugin;
 
@@ -42,8 +43,11 @@ import io.github.narikiro.api.command.Command;
 import io.github.narikiro.api.command.annotation.RegisterCommand;
 import io.github.narikiro.api.config.Config;
 import io.github.narikiro.api.config.annotation.RegisterConfig;
-import io.github.narikiro.api.plugin.XtraCorePluginContainer;
 import io.github.narikiro.core.internal.Internals;
+import io.github.narikiro.core.listener.annotation.AsyncListener;
+import io.github.narikiro.core.listener.annotation.Coalesce;
+import io.github.narikiro.core.logger.Subsystem;
+import io.github.narikiro.core.plugin.XtraCorePluginContainerImpl;
 
 /**
  * A class that uses reflection to scan a plugin for information, such as the
@@ -51,13 +55,13 @@ import io.github.narikiro.core.internal.Internals;
  */
 public class ReflectionScanner {
 
-    private XtraCorePluginContainer container;
+    private XtraCorePluginContainerImpl container;
     private Reflections reflections;
 
     private ReflectionScanner() {
     }
 
-    public static ReflectionScanner create(XtraCorePluginContainer container) {
+    public static ReflectionScanner create(XtraCorePluginContainerImpl container) {
         ReflectionScanner scanner = new ReflectionScanner();
         scanner.container = container;
         scanner.reflections = new Reflections(container.getPlugin().getClass().getPackage().getName(), new SubTypesScanner(),
@@ -71,8 +75,9 @@ public class ReflectionScanner {
      * @return A set of the commands
      */
     public Set<Command> getCommands() {
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Using reflection to access the registered commands...");
+        Logger logger = Subsystem.SCANNER.getLogger(this.container);
+        logger.info(Internals.LOG_HEADER);
+        logger.info("Using reflection to access the registered commands...");
         Set<Class<?>> classes = this.reflections.getTypesAnnotatedWith(RegisterCommand.class);
         Set<Command> commands = new HashSet<>();
 
@@ -81,14 +86,15 @@ public class ReflectionScanner {
                 Object o = oneClass.newInstance();
                 if (o instanceof Command) {
                     Command c = (Command) o;
-                    this.container.getLogger().info("Recognized command '" + c.aliases()[0] + "'! Adding to command list...");
+                    logger.debug("Recognized command '{}'! Adding to command list...", c.aliases()[0]);
                     commands.add(c);
+                    this.container.instances.put(oneClass, c);
                 }
             } catch (InstantiationException | IllegalAccessException e) {
-                this.container.getLogger().error("An error has occurred while attempting to instantiate the commands!", e);
+                logger.error("An error has occurred while attempting to instantiate the commands!", e);
             }
         }
-        this.container.getLogger().info("Commands added.");
+        logger.info("Commands added.");
         return commands;
     }
 
@@ -98,8 +104,9 @@ public class ReflectionScanner {
      * @return A set of configs
      */
     public Set<Config> getConfigs() {
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Using reflection to access the registered configs...");
+        Logger logger = Subsystem.SCANNER.getLogger(this.container);
+        logger.info(Internals.LOG_HEADER);
+        logger.info("Using reflection to access the registered configs...");
         Set<Class<?>> classes = this.reflections.getTypesAnnotatedWith(RegisterConfig.class);
         Set<Config> configs = new HashSet<>();
 
@@ -108,32 +115,32 @@ public class ReflectionScanner {
                 Object o = oneClass.newInstance();
                 if (o instanceof Config) {
                     Config c = (Config) o;
-                    this.container.getLogger().info("Recognized config '" + c.getClass().getAnnotation(RegisterConfig.class).configName()
-                            + "'! Adding to config list...");
+                    logger.debug("Recognized config '{}'! Adding to config list...", c.getClass().getAnnotation(RegisterConfig.class).configName());
                     configs.add(c);
+                    this.container.instances.put(oneClass, c);
                 }
             } catch (InstantiationException | IllegalAccessException e) {
-                this.container.getLogger().error("An error has occurred while attempting to instantiate the configs!", e);
+                logger.error("An error has occurred while attempting to instantiate the configs!", e);
             }
         }
-        this.container.getLogger().info("Configs added.");
+        logger.info("Configs added.");
         return configs;
     }
 
     public Multimap<Class<?>, Method> getPluginListeners() {
-        this.container.getLogger().info(Internals.LOG_HEADER);
-        this.container.getLogger().info("Using reflection to access and register the listeners...");
-        Set<Method> methods = this.reflections.getMethodsAnnotatedWith(Listener.class);
+        Logger logger = Subsystem.SCANNER.getLogger(this.container);
+        logger.info(Internals.LOG_HEADER);
+        logger.info("Using reflection to access and register the listeners...");
+        // Coalescing and asynchronous methods are listeners as well, even
+        // though they are not annotated with @Listener
+        Set<Method> methods = new HashSet<>(this.reflections.getMethodsAnnotatedWith(Listener.class));
+        methods.addAll(this.reflections.getMethodsAnnotatedWith(Coalesce.class));
+        methods.addAll(this.reflections.getMethodsAnnotatedWith(AsyncListener.class));
         Multimap<Class<?>, Method> map = ArrayListMultimap.create();
         for (Method method : methods) {
             if (method.getDeclaringClass().getAnnotation(Plugin.class) == null) {
-                this.container.getLogger().info("Registering method listener:");
-                this.container.getLogger().info(method.toString());
-                if (map.containsKey(method.getDeclaringClass())) {
-                    map.get(method.getDeclaringClass()).add(method);
-                } else {
-                    map.put(method.getDeclaringClass(), method);
-                }
+                logger.debug("Registering method listener: {}", method);
+                map.put(method.getDeclaringClass(), method);
             }
         }
         return map;
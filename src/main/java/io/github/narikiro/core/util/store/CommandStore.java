@@ -25,6 +25,10 @@
 
 package io.github.narikiro.core.util.store;
 
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+
 import javax.annotation.Nullable;
 
 import org.spongepowered.api.command.spec.CommandSpec;
@@ -36,8 +40,17 @@ import io.github.narikiro.api.command.state.CommandState;
  */
 public class CommandStore implements Comparable<CommandStore> {
 
+    private static final Collator COLLATOR = Collator.getInstance(Locale.ENGLISH);
+
     private Command command;
-    private CommandSpec.Builder commandSpecBuilder;
+    // Read once, as commands usually create a new array on every call
+    private String[] aliases;
+    @Nullable private String permission;
+    // Compared instead of the primary alias, so that sorting does not call
+    // aliases() and sorts like a human would
+    private CollationKey sortKey;
+    @Nullable private CommandSpec.Builder commandSpecBuilder;
+    @Nullable private CommandSpec commandSpec;
     private Command childOf;
     private CommandState state = CommandState.ENABLED;
 
@@ -45,16 +58,68 @@ public class CommandStore implements Comparable<CommandStore> {
         this.command = commandBase;
         this.commandSpecBuilder = commandSpecBuilder;
         this.childOf = childOf;
+        this.aliases = commandBase.aliases();
+        String permission = commandBase.permission();
+        // Permissions put together at runtime are shared by the commands
+        // using them. Literals are already interned, so this costs them
+        // nothing.
+        this.permission = permission != null ? permission.intern() : null;
+        this.sortKey = getCollationKey(this.aliases[0]);
+    }
+
+    private static CollationKey getCollationKey(String alias) {
+        // Collators are not thread safe
+        synchronized (COLLATOR) {
+            return COLLATOR.getCollationKey(alias);
+        }
     }
 
     public Command command() {
         return this.command;
     }
 
+    /**
+     * Gets the aliases of the command, as they were when the store was
+     * created. The array is shared, and must not be changed.
+     */
+    public String[] aliases() {
+        return this.aliases;
+    }
+
+    public String primaryAlias() {
+        return this.aliases[0];
+    }
+
+    @Nullable
+    public String permission() {
+        return this.permission;
+    }
+
+    /**
+     * Gets the command spec builder, or null once the spec has been built.
+     */
+    @Nullable
     public CommandSpec.Builder commandSpecBuilder() {
         return this.commandSpecBuilder;
     }
 
+    /**
+     * Gets the built command spec, or null if it has not been built yet.
+     */
+    @Nullable
+    public CommandSpec commandSpec() {
+        return this.commandSpec;
+    }
+
+    /**
+     * Sets the built command spec, and releases the builder as it is not
+     * needed anymore.
+     */
+    public void setCommandSpec(CommandSpec commandSpec) {
+        this.commandSpec = commandSpec;
+        this.commandSpecBuilder = null;
+    }
+
     public Command childOf() {
         return this.childOf;
     }
@@ -69,6 +134,6 @@ public class CommandStore implements Comparable<CommandStore> {
 
     @Override
     public int compareTo(CommandStore other) {
-        return this.command.aliases()[0].compareTo(other.command.aliases()[0]);
+        return this.sortKey.compareTo(other.sortKey);
     }
 }